@@ -0,0 +1,250 @@
+package io.krazy.dependency.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * Binds an {@link IServiceScope} to the current task so services can be
+ * requested from anywhere in its call tree without passing the scope around.
+ * <p>
+ * When the running JDK provides {@code java.lang.ScopedValue}, the scope is
+ * bound to a scoped value. The binding is then inherited by
+ * {@code StructuredTaskScope} forks without copying, and forked subtasks share
+ * the scoped instances of the bound scope. Otherwise the binding falls back to
+ * a non-inheritable thread local that is restored when the task completes.
+ */
+public final class AmbientScope
+{
+    private static final Carrier CARRIER = createCarrier();
+
+    private AmbientScope()
+    {
+    }
+
+    /**
+     * Runs a task with the given scope bound as the ambient scope.
+     *
+     * @param scope the scope to bind
+     * @param task  the task to run
+     */
+    public static void run(IServiceScope scope, Runnable task)
+    {
+        CARRIER.run(Objects.requireNonNull(scope), task);
+    }
+
+    /**
+     * Calls a task with the given scope bound as the ambient scope.
+     *
+     * @param <T>   the result type
+     * @param scope the scope to bind
+     * @param task  the task to call
+     * @return the result of the task
+     * @throws Exception if the task fails
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T call(IServiceScope scope, Callable<? extends T> task) throws Exception
+    {
+        final Object[] result = new Object[1];
+        final Exception[] failure = new Exception[1];
+
+        run(scope, () ->
+        {
+            try
+            {
+                result[0] = task.call();
+            }
+            catch (Exception err)
+            {
+                failure[0] = err;
+            }
+        });
+
+        if (failure[0] != null)
+        {
+            throw failure[0];
+        }
+
+        return (T) result[0];
+    }
+
+    /**
+     * Gets the ambient scope of the current task.
+     *
+     * @return the bound scope, or null if no scope is bound
+     */
+    public static @Nullable IServiceScope current()
+    {
+        return CARRIER.get();
+    }
+
+    /**
+     * Requests a service from the ambient scope of the current task.
+     *
+     * @param <T>   the type of service
+     * @param klass the class of the service type
+     * @return an instance of the requested service
+     * @throws IllegalStateException if no scope is bound
+     * @throws RuntimeException      if the service cannot be resolved or created
+     */
+    public static <T> T requestService(Class<T> klass) throws RuntimeException
+    {
+        final @Nullable IServiceScope scope = CARRIER.get();
+
+        if (scope == null)
+        {
+            throw new IllegalStateException("No ambient scope is bound to the current task.");
+        }
+
+        return scope.requestService(klass);
+    }
+
+    /**
+     * Checks whether the ambient scope is carried by {@code java.lang.ScopedValue}.
+     *
+     * @return true if scoped values are used, false if the thread local fallback
+     * is used
+     */
+    public static boolean isScopedValueCarrier()
+    {
+        return CARRIER instanceof ScopedValueCarrier;
+    }
+
+    private static Carrier createCarrier()
+    {
+        try
+        {
+            return new ScopedValueCarrier();
+        }
+        catch (Throwable err)
+        {
+            return new ThreadLocalCarrier();
+        }
+    }
+
+    sealed interface Carrier permits ScopedValueCarrier, ThreadLocalCarrier
+    {
+        @Nullable IServiceScope get();
+
+        void run(IServiceScope scope, Runnable task);
+    }
+
+    // Reaches ScopedValue through method handles since it isn't a final API in
+    // the JDK release this library targets.
+    static final class ScopedValueCarrier implements Carrier
+    {
+        private final Object scopedValue;
+        private final MethodHandle where;
+        private final MethodHandle run;
+        private final MethodHandle isBound;
+        private final MethodHandle get;
+
+        ScopedValueCarrier() throws Throwable
+        {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final Class<?> valueClass = Class.forName("java.lang.ScopedValue");
+            final Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+
+            this.scopedValue = lookup.findStatic(valueClass, "newInstance", MethodType.methodType(valueClass))
+                .invoke();
+            this.where = lookup.findStatic(valueClass, "where", MethodType.methodType(carrierClass, valueClass, Object.class))
+                .bindTo(scopedValue)
+                .asType(MethodType.methodType(Object.class, Object.class));
+            this.run = lookup.findVirtual(carrierClass, "run", MethodType.methodType(void.class, Runnable.class))
+                .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+            this.isBound = lookup.findVirtual(valueClass, "isBound", MethodType.methodType(boolean.class))
+                .bindTo(scopedValue);
+            this.get = lookup.findVirtual(valueClass, "get", MethodType.methodType(Object.class))
+                .bindTo(scopedValue);
+
+            // Make sure binding actually works on this runtime before relying on it.
+            final Object sentinel = new Object();
+            final boolean[] visible = new boolean[1];
+            bind(sentinel, () -> visible[0] = lookup() == sentinel);
+
+            if (!visible[0])
+            {
+                throw new IllegalStateException("ScopedValue binding isn't visible.");
+            }
+        }
+
+        @Override
+        public @Nullable IServiceScope get()
+        {
+            return (IServiceScope) lookup();
+        }
+
+        @Override
+        public void run(IServiceScope scope, Runnable task)
+        {
+            bind(scope, task);
+        }
+
+        private @Nullable Object lookup()
+        {
+            try
+            {
+                return (boolean) isBound.invokeExact() ? (Object) get.invokeExact() : null;
+            }
+            catch (Throwable err)
+            {
+                throw new IllegalStateException("Couldn't read ambient scope.", err);
+            }
+        }
+
+        private void bind(Object value, Runnable task)
+        {
+            try
+            {
+                final Object carrier = (Object) where.invokeExact(value);
+                run.invokeExact(carrier, task);
+            }
+            catch (RuntimeException | Error err)
+            {
+                throw err;
+            }
+            catch (Throwable err)
+            {
+                throw new IllegalStateException("Couldn't bind ambient scope.", err);
+            }
+        }
+    }
+
+    static final class ThreadLocalCarrier implements Carrier
+    {
+        private final ThreadLocal<IServiceScope> local = new ThreadLocal<>();
+
+        @Override
+        public @Nullable IServiceScope get()
+        {
+            return local.get();
+        }
+
+        @Override
+        public void run(IServiceScope scope, Runnable task)
+        {
+            final @Nullable IServiceScope previous = local.get();
+            local.set(scope);
+
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                if (previous == null)
+                {
+                    local.remove();
+                }
+                else
+                {
+                    local.set(previous);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.krazy.dependency.api;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Breakdown of the time spent building an {@link IServiceProvider}, by build
+ * phase and by service.
+ * <p>
+ * Services mapped lazily are mapped on first request instead of while
+ * building, so their time is not part of the report. Such a report is marked
+ * with {@link #isLazy()}, and its phases are empty.
+ */
+public final class BuildReport
+{
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Duration totalTime;
+    private final Map<Phase, Duration> phaseTimes;
+    private final List<ServiceTiming> serviceTimings;
+    private final boolean isLazy;
+
+    /**
+     * A phase of building a provider.
+     */
+    public enum Phase
+    {
+        /**
+         * Finding the constructors, fields and methods to inject and reading their
+         * annotations and configuration values.
+         */
+        REFLECTION,
+        /**
+         * Creating method handles for injection points, including
+         * {@code privateLookupIn} and unreflecting.
+         */
+        HANDLE_CREATION,
+        /**
+         * Traversing the dependency graph and validating it for missing services
+         * and cycles.
+         */
+        VALIDATION
+    }
+
+    /**
+     * Time spent on a single service while building.
+     *
+     * @param serviceType the implementation type of the service
+     * @param phaseTimes  the time spent on the service in each phase
+     */
+    public record ServiceTiming(Class<?> serviceType, Map<Phase, Duration> phaseTimes)
+    {
+        /**
+         * Returns the time spent on the service in a phase.
+         *
+         * @param phase the phase
+         * @return the time spent in the phase
+         */
+        public Duration getPhaseTime(Phase phase)
+        {
+            return phaseTimes.getOrDefault(phase, Duration.ZERO);
+        }
+
+        /**
+         * Returns the time spent on the service in every phase.
+         *
+         * @return the total time spent on the service
+         */
+        public Duration getTotalTime()
+        {
+            return phaseTimes.values().stream().reduce(Duration.ZERO, Duration::plus);
+        }
+    }
+
+    /**
+     * Collects build timings. Recorders are safe to use from multiple threads.
+     */
+    public static final class Recorder
+    {
+        private final long startNanos = System.nanoTime();
+        private final AtomicLongArray phaseNanos = new AtomicLongArray(PHASES.length);
+        private final Map<Class<?>, AtomicLongArray> serviceNanos = new ConcurrentHashMap<>();
+        private volatile boolean isLazy;
+
+        /**
+         * Marks the build as lazy: services are mapped on first request, so no
+         * mapping time is recorded.
+         */
+        public void markLazy()
+        {
+            isLazy = true;
+        }
+
+        /**
+         * Records time spent in a phase that isn't attributed to a service.
+         *
+         * @param phase the phase
+         * @param nanos the time spent, in nanoseconds
+         */
+        public void record(Phase phase, long nanos)
+        {
+            phaseNanos.addAndGet(phase.ordinal(), nanos);
+        }
+
+        /**
+         * Records time spent on a service in a phase.
+         *
+         * @param serviceType the implementation type of the service
+         * @param phase       the phase
+         * @param nanos       the time spent, in nanoseconds
+         */
+        public void record(Class<?> serviceType, Phase phase, long nanos)
+        {
+            record(phase, nanos);
+            serviceNanos.computeIfAbsent(serviceType, it -> new AtomicLongArray(PHASES.length))
+                .addAndGet(phase.ordinal(), nanos);
+        }
+
+        /**
+         * Creates the report. The total time runs from the creation of this
+         * recorder.
+         *
+         * @return the build report
+         */
+        public BuildReport toReport()
+        {
+            final Duration totalTime = Duration.ofNanos(System.nanoTime() - startNanos);
+            final List<ServiceTiming> timings = new ArrayList<>(serviceNanos.size());
+
+            for (var entry : serviceNanos.entrySet())
+            {
+                timings.add(new ServiceTiming(entry.getKey(), toPhaseTimes(entry.getValue())));
+            }
+
+            timings.sort(Comparator.comparing(ServiceTiming::getTotalTime).reversed());
+            return new BuildReport(totalTime, toPhaseTimes(phaseNanos), List.copyOf(timings), isLazy);
+        }
+
+        private static Map<Phase, Duration> toPhaseTimes(AtomicLongArray nanos)
+        {
+            final Map<Phase, Duration> output = new EnumMap<>(Phase.class);
+
+            for (Phase phase : PHASES)
+            {
+                output.put(phase, Duration.ofNanos(nanos.get(phase.ordinal())));
+            }
+
+            return Map.copyOf(output);
+        }
+    }
+
+    private BuildReport(
+        Duration totalTime,
+        Map<Phase, Duration> phaseTimes,
+        List<ServiceTiming> serviceTimings,
+        boolean isLazy
+    )
+    {
+        this.totalTime = totalTime;
+        this.phaseTimes = phaseTimes;
+        this.serviceTimings = serviceTimings;
+        this.isLazy = isLazy;
+    }
+
+    /**
+     * Returns the wall-clock time of the whole build.
+     *
+     * @return the total build time
+     */
+    public Duration getTotalTime()
+    {
+        return totalTime;
+    }
+
+    /**
+     * Checks if the provider maps its services on first request. The report of
+     * a lazy build only covers the work done while building, none of the
+     * services is mapped yet.
+     *
+     * @return true if the build was lazy, false otherwise
+     */
+    public boolean isLazy()
+    {
+        return isLazy;
+    }
+
+    /**
+     * Returns the time spent in a phase.
+     *
+     * @param phase the phase
+     * @return the time spent in the phase
+     */
+    public Duration getPhaseTime(Phase phase)
+    {
+        return phaseTimes.get(phase);
+    }
+
+    /**
+     * Returns the timings of every service, slowest first.
+     *
+     * @return the service timings
+     */
+    public List<ServiceTiming> getServiceTimings()
+    {
+        return serviceTimings;
+    }
+
+    /**
+     * Returns the timings of the slowest services.
+     *
+     * @param count the maximum number of services to return
+     * @return the service timings, slowest first
+     */
+    public List<ServiceTiming> getSlowestServices(int count)
+    {
+        return serviceTimings.subList(0, Math.min(count, serviceTimings.size()));
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder builder = new StringBuilder()
+            .append("Built provider in ").append(totalTime.toMillis()).append(" ms (");
+
+        for (Phase phase : PHASES)
+        {
+            builder.append(phase.ordinal() == 0 ? "" : ", ")
+                .append(phase.name().toLowerCase(Locale.ROOT))
+                .append(' ')
+                .append(phaseTimes.get(phase).toMillis())
+                .append(" ms");
+        }
+
+        if (isLazy)
+        {
+            builder.append(", services mapped on first request");
+        }
+
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,62 @@
+package io.krazy.dependency.api;
+
+import lombok.With;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Describes how an {@link IServiceProvider} keeps instances of services
+ * declared with {@link LifetimeType#CACHED} lifetime. Expired instances are
+ * disposed of by the next request of any cached service once the shortest
+ * expiration has passed again, or when the provider is closed.
+ *
+ * @param maximumSize       the maximum number of cached instances kept at once,
+ *                          the least recently used instance is evicted first
+ * @param expireAfterAccess the time after the last request at which an instance
+ *                          expires, or null if it never expires on idle
+ * @param expireAfterWrite  the time after construction at which an instance
+ *                          expires, or null if it never expires on age
+ * @param softValues        whether instances are held by soft references, which
+ *                          lets the garbage collector reclaim them under memory
+ *                          pressure
+ */
+@With
+public record CachePolicy(
+    int maximumSize,
+    @Nullable Duration expireAfterAccess,
+    @Nullable Duration expireAfterWrite,
+    boolean softValues
+)
+{
+    /**
+     * Constructs a new CachePolicy.
+     *
+     * @throws IllegalArgumentException if the maximum size is not positive or a
+     *                                  duration is negative
+     */
+    public CachePolicy
+    {
+        if (maximumSize <= 0)
+        {
+            throw new IllegalArgumentException("maximumSize must be positive.");
+        }
+
+        if (expireAfterAccess != null && expireAfterAccess.isNegative() ||
+            expireAfterWrite != null && expireAfterWrite.isNegative())
+        {
+            throw new IllegalArgumentException("Expiration duration must not be negative.");
+        }
+    }
+
+    /**
+     * Creates the default policy, which holds at most 1024 strongly referenced
+     * instances that never expire.
+     *
+     * @return the default cache policy
+     */
+    public static CachePolicy defaults()
+    {
+        return new CachePolicy(1024, null, null, false);
+    }
+}
@@ -3,6 +3,7 @@ package io.krazy.dependency.api;
 import io.krazy.dependency.api.injector.ConstructorInjector;
 import io.krazy.dependency.api.injector.FieldInjector;
 import io.krazy.dependency.api.injector.MethodInjector;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
@@ -14,12 +15,80 @@ import java.util.List;
  * @param constructorInjector the injector for the constructor
  * @param fieldInjectors      a list of injectors for fields
  * @param methodInjectors     a list of injectors for methods
+ * @param plan                the resolution plan computed by the mapper, or
+ *                            null if the record was created without one
+ * @param hooks               the lifecycle hooks of the service
+ * @param decorated           the record of the service decorated by this one,
+ *                            or null if the service isn't a decorator
  */
 public record DependencyRecord(
     ServiceDescriptor descriptor,
     ConstructorInjector constructorInjector,
     List<FieldInjector> fieldInjectors,
-    List<MethodInjector> methodInjectors
+    List<MethodInjector> methodInjectors,
+    @Nullable ResolutionPlan plan,
+    LifecycleHooks hooks,
+    @Nullable DependencyRecord decorated
 )
 {
+    /**
+     * Constructs a new DependencyRecord of a service that isn't a decorator.
+     *
+     * @param descriptor          the service descriptor
+     * @param constructorInjector the injector for the constructor
+     * @param fieldInjectors      a list of injectors for fields
+     * @param methodInjectors     a list of injectors for methods
+     * @param plan                the resolution plan, or null
+     * @param hooks               the lifecycle hooks of the service
+     */
+    public DependencyRecord(
+        ServiceDescriptor descriptor,
+        ConstructorInjector constructorInjector,
+        List<FieldInjector> fieldInjectors,
+        List<MethodInjector> methodInjectors,
+        @Nullable ResolutionPlan plan,
+        LifecycleHooks hooks
+    )
+    {
+        this(descriptor, constructorInjector, fieldInjectors, methodInjectors, plan, hooks, null);
+    }
+
+    /**
+     * Constructs a new DependencyRecord without lifecycle hooks.
+     *
+     * @param descriptor          the service descriptor
+     * @param constructorInjector the injector for the constructor
+     * @param fieldInjectors      a list of injectors for fields
+     * @param methodInjectors     a list of injectors for methods
+     * @param plan                the resolution plan, or null
+     */
+    public DependencyRecord(
+        ServiceDescriptor descriptor,
+        ConstructorInjector constructorInjector,
+        List<FieldInjector> fieldInjectors,
+        List<MethodInjector> methodInjectors,
+        @Nullable ResolutionPlan plan
+    )
+    {
+        this(descriptor, constructorInjector, fieldInjectors, methodInjectors, plan, LifecycleHooks.NONE, null);
+    }
+
+    /**
+     * Constructs a new DependencyRecord without a resolution plan or lifecycle
+     * hooks.
+     *
+     * @param descriptor          the service descriptor
+     * @param constructorInjector the injector for the constructor
+     * @param fieldInjectors      a list of injectors for fields
+     * @param methodInjectors     a list of injectors for methods
+     */
+    public DependencyRecord(
+        ServiceDescriptor descriptor,
+        ConstructorInjector constructorInjector,
+        List<FieldInjector> fieldInjectors,
+        List<MethodInjector> methodInjectors
+    )
+    {
+        this(descriptor, constructorInjector, fieldInjectors, methodInjectors, null, LifecycleHooks.NONE, null);
+    }
 }
@@ -34,4 +34,42 @@ public interface IDependencyMapper
      * @throws CircularDependencyException if a circular dependency is detected
      */
     MappingResult computeMapping() throws IllegalAccessException, NoSuchServiceException, CircularDependencyException;
+
+    /**
+     * Computes the mapping of dependencies for all registered services and
+     * records the time spent on each phase. Mappers that don't record timings
+     * compute the mapping without recording.
+     *
+     * @param recorder the recorder receiving the timings
+     * @return a {@link MappingResult} containing the dependency injection records
+     * @throws IllegalAccessException      if there's an issue accessing
+     *                                     constructors or members
+     * @throws NoSuchServiceException      if a required dependency is not
+     *                                     registered
+     * @throws CircularDependencyException if a circular dependency is detected
+     */
+    default MappingResult computeMapping(BuildReport.Recorder recorder)
+        throws IllegalAccessException, NoSuchServiceException, CircularDependencyException
+    {
+        return computeMapping();
+    }
+
+    /**
+     * Creates a lazy mapping that maps and validates a service's dependencies on
+     * first request instead of up front. Mappers that don't support lazy mapping
+     * compute the full mapping.
+     *
+     * @return a lazy {@link MappingResult}
+     * @throws IllegalAccessException      if there's an issue accessing
+     *                                     constructors or members
+     * @throws NoSuchServiceException      if a required dependency is not
+     *                                     registered
+     * @throws CircularDependencyException if a circular dependency is detected
+     * @see MappingResult#lazy(java.util.Map, MappingResult.RecordLoader)
+     */
+    default MappingResult computeLazyMapping()
+        throws IllegalAccessException, NoSuchServiceException, CircularDependencyException
+    {
+        return computeMapping();
+    }
 }
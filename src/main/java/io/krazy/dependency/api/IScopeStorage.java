@@ -0,0 +1,59 @@
+package io.krazy.dependency.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Holds the scoped services of one scope. Every scoped service has a fixed slot
+ * between zero and the slot count the storage was created with, so a storage
+ * can be backed by an array, a map or anything in between.
+ * <p>
+ * Storages only hold instances, the provider runs their lifecycle hooks and
+ * disposes of them.
+ */
+public interface IScopeStorage
+{
+    /**
+     * Gets the instance stored in a slot.
+     *
+     * @param slot the slot of the service
+     * @return the stored instance, or null if the slot is empty
+     */
+    @Nullable Object get(int slot);
+
+    /**
+     * Gets the instance stored in a slot, or stores the one created by the
+     * factory if the slot is empty. The factory must be called at most once per
+     * slot until the storage is cleared, even by a storage shared between
+     * threads.
+     * <p>
+     * The factory resolves the dependencies of the service, so it may call back
+     * into this storage for other slots.
+     *
+     * @param slot    the slot of the service
+     * @param factory constructs the service
+     * @return the stored instance
+     */
+    Object computeIfAbsent(int slot, Supplier<?> factory);
+
+    /**
+     * Counts the stored instances.
+     *
+     * @return the number of stored instances
+     */
+    int size();
+
+    /**
+     * Passes every stored instance and its slot to the action.
+     *
+     * @param action the action to run
+     */
+    void forEach(ObjIntConsumer<Object> action);
+
+    /**
+     * Removes every stored instance, so the storage can be reused.
+     */
+    void clear();
+}
@@ -0,0 +1,19 @@
+package io.krazy.dependency.api;
+
+/**
+ * Creates the {@link IScopeStorage} of every scope of a provider.
+ */
+@FunctionalInterface
+public interface IScopeStorageFactory
+{
+    /**
+     * Creates an empty storage. Storages of {@link ScopeMode#SHARED} scopes are
+     * used by many threads at once, storages of {@link ScopeMode#CONFINED} scopes
+     * only by the thread that owns the scope.
+     *
+     * @param slotCount the number of scoped service slots
+     * @param mode      the threading mode of the scope
+     * @return a new storage
+     */
+    IScopeStorage create(int slotCount, ScopeMode mode);
+}
@@ -2,7 +2,9 @@ package io.krazy.dependency.api;
 
 import io.krazy.dependency.api.exception.CircularDependencyException;
 import io.krazy.dependency.api.exception.NoSuchServiceException;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -10,31 +12,18 @@ import java.util.Map;
  * It allows registering service descriptors and building an
  * {@link IServiceProvider}.
  */
-public interface IServiceConfigurator
+public interface IServiceConfigurator extends IServiceRegistry
 {
     /**
-     * Adds a service descriptor for a given mapping type.
+     * Returns the configuration values injected into {@code @Config} injection
+     * points.
      *
-     * @param mappingType the type used to request the service
-     * @param descriptor  the descriptor containing service implementation and
-     *                    lifetime information
+     * @return an unmodifiable map of configuration keys to their raw values
      */
-    void addDescriptor(Class<?> mappingType, ServiceDescriptor descriptor);
-
-    /**
-     * Returns an unmodifiable map of registered service descriptors.
-     *
-     * @return a map of types to their respective service descriptors
-     */
-    Map<Class<?>, ServiceDescriptor> getDescriptorMap();
-
-    /**
-     * Checks if a descriptor is already registered for the given mapping type.
-     *
-     * @param mappingType the type to check
-     * @return true if a descriptor exists, false otherwise
-     */
-    boolean hasDescriptor(Class<?> mappingType);
+    default Map<String, String> getConfigurationMap()
+    {
+        return Map.of();
+    }
 
     /**
      * Builds and returns a service provider based on the current configuration.
@@ -50,57 +39,41 @@ public interface IServiceConfigurator
     IServiceProvider buildProvider() throws IllegalAccessException, NoSuchServiceException, CircularDependencyException;
 
     /**
-     * Registers a service with a singleton lifetime. A single instance will be
-     * created and shared.
-     *
-     * @param <T>         the mapping type
-     * @param mappingType the class of the mapping type
-     * @param klass       the implementation class
-     */
-    default <T> void addSingleton(Class<T> mappingType, Class<? extends T> klass)
-    {
-        var descriptor = ServiceDescriptor.forSingleton(klass);
-        addDescriptor(mappingType, descriptor);
-    }
-
-    /**
-     * Registers a pre-existing instance as a singleton service.
+     * Returns the timing breakdown of the last successful
+     * {@link #buildProvider()}, if this configurator records one.
      *
-     * @param <T>         the mapping type
-     * @param mappingType the class of the mapping type
-     * @param instance    the instance to register
+     * @return the last build report, or null if none was recorded
      */
-    default <T> void addSingleton(Class<T> mappingType, T instance)
+    default @Nullable BuildReport getLastBuildReport()
     {
-        var descriptor = ServiceDescriptor.forSingleton(instance);
-        addDescriptor(mappingType, descriptor);
+        return null;
     }
 
     /**
-     * Registers a service with a transient lifetime. A new instance will be created
-     * every time it's requested.
+     * Returns the module that registered a type, if this configurator tracks
+     * modules.
      *
-     * @param <T>         the mapping type
-     * @param mappingType the class of the mapping type
-     * @param klass       the implementation class
+     * @param mappingType the registered type
+     * @return the module of the type, or null if it wasn't registered by a module
      */
-    default <T> void addTransient(Class<T> mappingType, Class<? extends T> klass)
+    default @Nullable IServiceModule getModule(Class<?> mappingType)
     {
-        var descriptor = ServiceDescriptor.forTransient(klass);
-        addDescriptor(mappingType, descriptor);
+        return null;
     }
 
     /**
-     * Registers a service with a scoped lifetime. A single instance will be created
-     * per {@link IServiceScope}.
+     * Registers every service listed in the compile-time service indexes visible
+     * to the given class loader. Indexes are generated for classes annotated with
+     * {@link io.krazy.dependency.api.annotation.Service}.
      *
-     * @param <T>         the mapping type
-     * @param mappingType the class of the mapping type
-     * @param klass       the implementation class
+     * @param classLoader the class loader used to find indexes and load classes
+     * @return the number of registered services
+     * @throws IOException            if an index cannot be read or is malformed
+     * @throws ClassNotFoundException if an indexed class cannot be found
+     * @see ServiceIndex
      */
-    default <T> void addScoped(Class<T> mappingType, Class<? extends T> klass)
+    default int addIndexedServices(ClassLoader classLoader) throws IOException, ClassNotFoundException
     {
-        var descriptor = ServiceDescriptor.forScoped(klass);
-        addDescriptor(mappingType, descriptor);
+        return ServiceIndex.load(classLoader, this);
     }
 }
@@ -0,0 +1,19 @@
+package io.krazy.dependency.api;
+
+/**
+ * A group of services registered together, such as the services of a feature.
+ * Modules can be added to a configurator from many threads at once, and the
+ * services of each module are mapped in parallel with the other modules when
+ * the provider is built.
+ */
+@FunctionalInterface
+public interface IServiceModule
+{
+    /**
+     * Registers the services of this module. The registry must only be used
+     * within this call.
+     *
+     * @param registry the registry to register the services with
+     */
+    void configure(IServiceRegistry registry);
+}
@@ -4,7 +4,7 @@ package io.krazy.dependency.api;
  * Represents a service provider that can resolve dependencies and create child
  * scopes.
  */
-public interface IServiceProvider extends IServiceRequestable
+public interface IServiceProvider extends IServiceRequestable, AutoCloseable
 {
     /**
      * Creates a new child scope. Scoped services will have their lifetime tied to
@@ -14,6 +14,24 @@ public interface IServiceProvider extends IServiceRequestable
      */
     IServiceScope createScope();
 
+    /**
+     * Creates a new child scope with the given threading mode.
+     *
+     * @param mode how the scope may be used across threads
+     * @return a new {@link IServiceScope}
+     */
+    IServiceScope createScope(ScopeMode mode);
+
+    /**
+     * Creates a child scope that is recycled when closed. Closing the scope
+     * disposes of its services and returns its storage to a pool for a later
+     * call. Every call returns a new scope object, which stays closed once
+     * closed even when its storage is reused.
+     *
+     * @return a new or recycled {@link IServiceScope}
+     */
+    IServiceScope createPooledScope();
+
     /**
      * Closes the specified scope and disposes of any disposable services within it.
      *
@@ -21,4 +39,22 @@ public interface IServiceProvider extends IServiceRequestable
      * @throws Exception if disposal fails
      */
     void closeScope(IServiceScope scope) throws Exception;
+
+    /**
+     * Returns the counters and ages of the scopes created by this provider.
+     * Scopes are tracked without being kept reachable, and the services of
+     * scopes that become unreachable without being closed are disposed of
+     * automatically.
+     *
+     * @return a snapshot of the scope statistics
+     */
+    ScopeStatistics getScopeStatistics();
+
+    /**
+     * Closes this provider and disposes of its root and per-thread services.
+     *
+     * @throws Exception if disposal fails
+     */
+    @Override
+    void close() throws Exception;
 }
@@ -0,0 +1,186 @@
+package io.krazy.dependency.api;
+
+import io.krazy.dependency.api.exception.AmbiguousRegisterException;
+import io.krazy.dependency.api.exception.NoSuchServiceException;
+
+import java.util.Map;
+
+/**
+ * Registers service descriptors. It is the part of an
+ * {@link IServiceConfigurator} that {@link IServiceModule}s register their
+ * services with.
+ */
+public interface IServiceRegistry
+{
+    /**
+     * Adds a service descriptor for a given mapping type.
+     *
+     * @param mappingType the type used to request the service
+     * @param descriptor  the descriptor containing service implementation and
+     *                    lifetime information
+     */
+    void addDescriptor(Class<?> mappingType, ServiceDescriptor descriptor);
+
+    /**
+     * Returns an unmodifiable map of registered service descriptors.
+     *
+     * @return a map of types to their respective service descriptors
+     */
+    Map<Class<?>, ServiceDescriptor> getDescriptorMap();
+
+    /**
+     * Checks if a descriptor is already registered for the given mapping type.
+     *
+     * @param mappingType the type to check
+     * @return true if a descriptor exists, false otherwise
+     */
+    boolean hasDescriptor(Class<?> mappingType);
+
+    /**
+     * Registers a service with a singleton lifetime. A single instance will be
+     * created and shared.
+     *
+     * @param <T>         the mapping type
+     * @param mappingType the class of the mapping type
+     * @param klass       the implementation class
+     */
+    default <T> void addSingleton(Class<T> mappingType, Class<? extends T> klass)
+    {
+        var descriptor = ServiceDescriptor.forSingleton(klass);
+        addDescriptor(mappingType, descriptor);
+    }
+
+    /**
+     * Registers a pre-existing instance as a singleton service.
+     *
+     * @param <T>         the mapping type
+     * @param mappingType the class of the mapping type
+     * @param instance    the instance to register
+     */
+    default <T> void addSingleton(Class<T> mappingType, T instance)
+    {
+        var descriptor = ServiceDescriptor.forSingleton(instance);
+        addDescriptor(mappingType, descriptor);
+    }
+
+    /**
+     * Registers a service with a transient lifetime. A new instance will be created
+     * every time it's requested.
+     *
+     * @param <T>         the mapping type
+     * @param mappingType the class of the mapping type
+     * @param klass       the implementation class
+     */
+    default <T> void addTransient(Class<T> mappingType, Class<? extends T> klass)
+    {
+        var descriptor = ServiceDescriptor.forTransient(klass);
+        addDescriptor(mappingType, descriptor);
+    }
+
+    /**
+     * Registers a service with a scoped lifetime. A single instance will be created
+     * per {@link IServiceScope}.
+     *
+     * @param <T>         the mapping type
+     * @param mappingType the class of the mapping type
+     * @param klass       the implementation class
+     */
+    default <T> void addScoped(Class<T> mappingType, Class<? extends T> klass)
+    {
+        var descriptor = ServiceDescriptor.forScoped(klass);
+        addDescriptor(mappingType, descriptor);
+    }
+
+    /**
+     * Registers a service with a thread lifetime. A single instance will be created
+     * per thread and disposed of when the {@link IServiceProvider} is closed.
+     *
+     * @param <T>         the mapping type
+     * @param mappingType the class of the mapping type
+     * @param klass       the implementation class
+     */
+    default <T> void addThread(Class<T> mappingType, Class<? extends T> klass)
+    {
+        var descriptor = ServiceDescriptor.forThread(klass);
+        addDescriptor(mappingType, descriptor);
+    }
+
+    /**
+     * Registers a service with a cached lifetime. A single instance will be kept
+     * until the provider's {@link CachePolicy} evicts it.
+     *
+     * @param <T>         the mapping type
+     * @param mappingType the class of the mapping type
+     * @param klass       the implementation class
+     */
+    default <T> void addCached(Class<T> mappingType, Class<? extends T> klass)
+    {
+        var descriptor = ServiceDescriptor.forCached(klass);
+        addDescriptor(mappingType, descriptor);
+    }
+
+    /**
+     * Registers the services of a module.
+     *
+     * @param module the module to register
+     * @throws AmbiguousRegisterException if a type of the module is already
+     *                                    registered
+     */
+    default void addModule(IServiceModule module)
+    {
+        module.configure(this);
+    }
+
+    /**
+     * Registers an additional type for an already registered service. Both types
+     * resolve to the same record and storage, so a singleton is created once and
+     * shared by every alias.
+     *
+     * @param aliasType  the additional type to register
+     * @param targetType the type the service is already registered with
+     * @throws NoSuchServiceException     if the target type is not registered
+     * @throws IllegalArgumentException   if the implementation of the target
+     *                                    doesn't implement the alias type
+     * @throws AmbiguousRegisterException if the alias type is already registered
+     */
+    default void addAlias(Class<?> aliasType, Class<?> targetType)
+    {
+        final ServiceDescriptor descriptor = getDescriptorMap().get(targetType);
+
+        if (descriptor == null)
+        {
+            throw new NoSuchServiceException(targetType);
+        }
+
+        if (!aliasType.isAssignableFrom(descriptor.getImplementationType()))
+        {
+            throw new IllegalArgumentException(String.format(
+                "%s cannot be an alias of %s because %s doesn't implement it.",
+                aliasType.getName(),
+                targetType.getName(),
+                descriptor.getImplementationType().getName()
+            ));
+        }
+
+        addDescriptor(aliasType, descriptor);
+    }
+
+    /**
+     * Wraps a registered service with a decorator, such as a caching, metrics or
+     * retry wrapper. The decorator takes the place of the service for its type
+     * and aliases and keeps its lifetime, and a new instance of the service is
+     * injected where the decorator depends on the service type. Decorating a
+     * service again wraps the previous decorator.
+     * <p>
+     * Like a wrapping stream, the decorator owns the instance it decorates: only
+     * the decorator is disposed of by the provider.
+     *
+     * @param <T>           the service type
+     * @param serviceType   the type the service is registered with
+     * @param decoratorType the implementation class of the decorator
+     * @throws NoSuchServiceException   if the service type is not registered
+     * @throws IllegalArgumentException if the decorator doesn't implement the
+     *                                  service type or one of its aliases
+     */
+    <T> void decorate(Class<T> serviceType, Class<? extends T> decoratorType);
+}
@@ -1,5 +1,9 @@
 package io.krazy.dependency.api;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
 /**
  * Represents a component that can provide services based on their type.
  */
@@ -22,4 +26,46 @@ public interface IServiceRequestable
      * @throws RuntimeException if the service cannot be resolved or created
      */
     <T> T requestService(Class<T> klass) throws RuntimeException;
+
+    /**
+     * Requests an instance of the specified service type if it is registered,
+     * without throwing when it isn't.
+     *
+     * @param <T>   the type of service
+     * @param klass the class of the service type
+     * @return an instance of the requested service, or null if it is not
+     *         registered
+     * @throws RuntimeException if the service is registered but cannot be created
+     */
+    default <T> @Nullable T requestServiceOrNull(Class<T> klass) throws RuntimeException
+    {
+        return hasService(klass) ? requestService(klass) : null;
+    }
+
+    /**
+     * Requests an instance of the specified service type if it is registered,
+     * without throwing when it isn't.
+     *
+     * @param <T>   the type of service
+     * @param klass the class of the service type
+     * @return an instance of the requested service, or empty if it is not
+     *         registered
+     * @throws RuntimeException if the service is registered but cannot be created
+     */
+    default <T> Optional<T> tryRequestService(Class<T> klass) throws RuntimeException
+    {
+        return Optional.ofNullable(requestServiceOrNull(klass));
+    }
+
+    /**
+     * Gets a pre-resolved handle for the specified service type. The handle can
+     * be used to request the service repeatedly from this requestable or any scope
+     * of the same provider.
+     *
+     * @param <T>   the type of service
+     * @param klass the class of the service type
+     * @return a handle for the requested service
+     * @throws RuntimeException if the service is not registered
+     */
+    <T> ServiceHandle<T> handleFor(Class<T> klass) throws RuntimeException;
 }
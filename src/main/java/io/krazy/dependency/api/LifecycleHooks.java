@@ -0,0 +1,30 @@
+package io.krazy.dependency.api;
+
+import io.krazy.dependency.api.injector.MethodInjector;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The lifecycle hooks of a service.
+ *
+ * @param initializer the injector of the {@code @OnInitialize} method, or null
+ * @param disposer    the injector of the {@code @OnDispose} method, or null
+ * @see io.krazy.dependency.api.annotation.OnInitialize
+ * @see io.krazy.dependency.api.annotation.OnDispose
+ */
+public record LifecycleHooks(@Nullable MethodInjector initializer, @Nullable MethodInjector disposer)
+{
+    /**
+     * Hooks of a service without any lifecycle method.
+     */
+    public static final LifecycleHooks NONE = new LifecycleHooks(null, null);
+
+    /**
+     * Checks if the service has an initialize hook.
+     *
+     * @return true if an initializer is present
+     */
+    public boolean hasInitializer()
+    {
+        return initializer != null;
+    }
+}
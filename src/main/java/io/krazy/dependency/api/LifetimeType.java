@@ -19,5 +19,18 @@ public enum LifetimeType
     /**
      * A single instance is created per {@link IServiceScope}.
      */
-    SCOPED
+    SCOPED,
+
+    /**
+     * A single instance is created per thread and disposed of when the
+     * {@link IServiceProvider} is closed.
+     */
+    THREAD,
+
+    /**
+     * A single instance is kept in the {@link IServiceProvider} cache until it is
+     * evicted according to the provider's {@link CachePolicy}, after which the
+     * next request creates a new instance.
+     */
+    CACHED
 }
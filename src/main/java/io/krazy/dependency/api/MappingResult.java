@@ -1,62 +1,266 @@
 package io.krazy.dependency.api;
 
+import io.krazy.dependency.api.exception.DependencyException;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents the result of the dependency mapping process.
  * Contains a collection of {@link DependencyRecord}s for all registered
- * services.
+ * services, keyed by the type they are requested with. Aliases of a service
+ * share its record.
+ * <p>
+ * A lazy result created with {@link #lazy(Map, RecordLoader)} knows every
+ * service up front but maps and validates a service's subgraph only when its
+ * record is first requested. Mapped records are published into a concurrent,
+ * append-only map. A subgraph is mapped by a single thread, and concurrent
+ * requests for the same service wait for it.
  */
 public final class MappingResult
 {
     private final Map<Class<?>, DependencyRecord> dependencyRecordMap;
+    private final @Nullable Map<Class<?>, ServiceDescriptor> descriptorMap;
+    private final @Nullable RecordLoader recordLoader;
+    // Loads in progress of a lazy result, completed once their records are published.
+    private final @Nullable Map<Class<?>, CompletableFuture<Void>> pendingLoads;
+
+    /**
+     * Loads the records of a service and every service it depends on.
+     */
+    @FunctionalInterface
+    public interface RecordLoader
+    {
+        /**
+         * Maps the subgraph of the given service.
+         *
+         * @param klass     the service type to map
+         * @param published the result being loaded into, used to skip services
+         *                  that are already mapped
+         * @return the records of every newly mapped service
+         * @throws IllegalAccessException if there's an issue accessing
+         *                                constructors or members
+         */
+        Map<Class<?>, DependencyRecord> load(Class<?> klass, MappingResult published) throws IllegalAccessException;
+    }
 
     /**
      * Constructs a new MappingResult.
      *
-     * @param dependencyRecordMap a map of implementation types to their dependency
+     * @param dependencyRecordMap a map of service types to their dependency
      *                            records
      */
     public MappingResult(Map<Class<?>, DependencyRecord> dependencyRecordMap)
     {
         this.dependencyRecordMap = dependencyRecordMap;
+        this.descriptorMap = null;
+        this.recordLoader = null;
+        this.pendingLoads = null;
+    }
+
+    private MappingResult(Map<Class<?>, ServiceDescriptor> descriptorMap, RecordLoader recordLoader)
+    {
+        this.dependencyRecordMap = new ConcurrentHashMap<>();
+        this.descriptorMap = descriptorMap;
+        this.recordLoader = recordLoader;
+        this.pendingLoads = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a lazy MappingResult whose records are mapped on first request.
+     *
+     * @param descriptorMap a map of service types to their descriptors
+     * @param recordLoader  the loader mapping a service's subgraph
+     * @return a new lazy mapping result
+     */
+    public static MappingResult lazy(Map<Class<?>, ServiceDescriptor> descriptorMap, RecordLoader recordLoader)
+    {
+        return new MappingResult(descriptorMap, recordLoader);
     }
 
     /**
-     * Checks if a dependency record exists for the specified implementation type.
+     * Checks if records of this result are mapped on first request.
      *
-     * @param klass the implementation class
+     * @return true if this result is lazy, false otherwise
+     */
+    public boolean isLazy()
+    {
+        return recordLoader != null;
+    }
+
+    /**
+     * Checks if a dependency record exists for the specified service type.
+     * For a lazy result this doesn't map the service.
+     *
+     * @param klass the service type
      * @return true if a record exists, false otherwise
      */
     public boolean hasRecord(Class<?> klass)
+    {
+        return descriptorMap != null ? descriptorMap.containsKey(klass) : dependencyRecordMap.containsKey(klass);
+    }
+
+    /**
+     * Checks if the record of the specified service type has already been
+     * mapped. For an eager result this is the same as {@link #hasRecord(Class)}.
+     *
+     * @param klass the service type
+     * @return true if the record is mapped, false otherwise
+     */
+    public boolean isRecordMapped(Class<?> klass)
     {
         return dependencyRecordMap.containsKey(klass);
     }
 
     /**
-     * Gets the dependency record for the specified implementation type.
+     * Gets the dependency record for the specified service type. A lazy
+     * result maps and validates the service's subgraph on first request.
      *
-     * @param klass the implementation class
+     * @param klass the service type
      * @return the {@link DependencyRecord}, or null if not found
+     * @throws DependencyException if the subgraph of a lazy result is invalid
      */
     public DependencyRecord getRecord(Class<?> klass)
     {
+        final @Nullable DependencyRecord record = dependencyRecordMap.get(klass);
+
+        if (record != null || recordLoader == null || pendingLoads == null || !hasRecord(klass))
+        {
+            return record;
+        }
+
+        final CompletableFuture<Void> load = new CompletableFuture<>();
+        final @Nullable CompletableFuture<Void> pending = pendingLoads.putIfAbsent(klass, load);
+
+        if (pending != null)
+        {
+            awaitLoad(pending);
+            return dependencyRecordMap.get(klass);
+        }
+
+        try
+        {
+            // Another load may have published it before this one was claimed.
+            if (!dependencyRecordMap.containsKey(klass))
+            {
+                publish(recordLoader.load(klass, this));
+            }
+
+            load.complete(null);
+        }
+        catch (IllegalAccessException err)
+        {
+            final DependencyException failure = new DependencyException("Couldn't map " + klass.getName() + ".", err);
+            load.completeExceptionally(failure);
+            throw failure;
+        }
+        catch (RuntimeException | Error err)
+        {
+            load.completeExceptionally(err);
+            throw err;
+        }
+        finally
+        {
+            // Failed loads aren't remembered, a later request maps the service again.
+            pendingLoads.remove(klass, load);
+        }
+
         return dependencyRecordMap.get(klass);
     }
 
+    private void publish(Map<Class<?>, DependencyRecord> loaded)
+    {
+        for (var entry : loaded.entrySet())
+        {
+            dependencyRecordMap.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Waits for the load of another thread, rethrowing its failure.
+     */
+    private static void awaitLoad(CompletableFuture<Void> pending)
+    {
+        try
+        {
+            pending.join();
+        }
+        catch (CompletionException err)
+        {
+            if (err.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+
+            if (err.getCause() instanceof Error cause)
+            {
+                throw cause;
+            }
+
+            throw err;
+        }
+    }
+
     /**
-     * Gets all dependency records in this result.
+     * Gets the descriptor of the specified service type without mapping
+     * it.
+     *
+     * @param klass the service type
+     * @return the {@link ServiceDescriptor}, or null if not found
+     */
+    public @Nullable ServiceDescriptor getDescriptor(Class<?> klass)
+    {
+        if (descriptorMap != null)
+        {
+            return descriptorMap.get(klass);
+        }
+
+        final @Nullable DependencyRecord record = dependencyRecordMap.get(klass);
+        return record == null ? null : record.descriptor();
+    }
+
+    /**
+     * Gets every type that can be requested from this result, including services
+     * of a lazy result that aren't mapped yet.
+     *
+     * @return an unmodifiable set of service types
+     */
+    public Set<Class<?>> getServiceTypes()
+    {
+        return Collections.unmodifiableSet(
+            descriptorMap != null ? descriptorMap.keySet() : dependencyRecordMap.keySet()
+        );
+    }
+
+    /**
+     * Gets all dependency records mapped so far in this result.
      *
      * @return an unmodifiable collection of {@link DependencyRecord}s
      */
     public Collection<DependencyRecord> getRecords()
     {
-        return dependencyRecordMap.values();
+        return Collections.unmodifiableCollection(dependencyRecordMap.values());
+    }
+
+    /**
+     * Gets the dependency records mapped so far in this result, keyed by the type
+     * they are requested with.
+     *
+     * @return an unmodifiable map of types to their {@link DependencyRecord}s
+     */
+    public Map<Class<?>, DependencyRecord> getRecordMap()
+    {
+        return Collections.unmodifiableMap(dependencyRecordMap);
     }
 
     /**
-     * Gets the total number of registered dependency records.
+     * Gets the total number of dependency records mapped so far.
      *
      * @return the record count
      */
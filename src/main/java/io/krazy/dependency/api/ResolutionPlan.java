@@ -0,0 +1,97 @@
+package io.krazy.dependency.api;
+
+import java.util.List;
+
+/**
+ * Describes how the dependencies of a service are resolved, computed once when
+ * the service is mapped.
+ *
+ * @param effectiveLifetime       the narrowest lifetime the service's
+ *                                subgraph requires; for a transient service
+ *                                this is the narrowest lifetime of the
+ *                                services it depends on, or
+ *                                {@link LifetimeType#TRANSIENT} if it depends
+ *                                on no stored service
+ * @param constructorDependencies the dependencies of each constructor
+ *                                parameter
+ * @param fieldDependencies       the dependencies of each field injector
+ * @param methodDependencies      the dependencies of each method injector's
+ *                                parameters
+ */
+public record ResolutionPlan(
+    LifetimeType effectiveLifetime,
+    List<Dependency> constructorDependencies,
+    List<Dependency> fieldDependencies,
+    List<List<Dependency>> methodDependencies
+)
+{
+    /**
+     * How a single dependency is resolved. Providers pick the way to resolve an
+     * edge from it once, when the dependent is first constructed.
+     */
+    public enum Resolution
+    {
+        /**
+         * Resolved once from the provider's root storage.
+         */
+        ONCE,
+        /**
+         * Resolved from the scope the service is constructed in.
+         */
+        PER_SCOPE,
+        /**
+         * Resolved from the storage of the calling thread.
+         */
+        PER_THREAD,
+        /**
+         * Resolved from the provider cache.
+         */
+        CACHED,
+        /**
+         * Rebuilt every time it is injected.
+         */
+        EACH_TIME,
+        /**
+         * A configuration value or absent optional dependency bound while mapping.
+         */
+        CONSTANT;
+
+        /**
+         * Gets the resolution of a service with the specified lifetime.
+         *
+         * @param lifetimeType the lifetime of the service
+         * @return the resolution of the service
+         */
+        public static Resolution of(LifetimeType lifetimeType)
+        {
+            return switch (lifetimeType)
+            {
+                case SINGLETON -> ONCE;
+                case SCOPED -> PER_SCOPE;
+                case THREAD -> PER_THREAD;
+                case CACHED -> CACHED;
+                case TRANSIENT -> EACH_TIME;
+            };
+        }
+    }
+
+    /**
+     * A single dependency of a service.
+     *
+     * @param serviceType the type the dependency is requested with
+     * @param resolution  how the dependency is resolved
+     */
+    public record Dependency(Class<?> serviceType, Resolution resolution)
+    {
+    }
+
+    /**
+     * Checks if the service's subgraph needs a scope to be resolved.
+     *
+     * @return true if a scoped service is reachable, false otherwise
+     */
+    public boolean needsScope()
+    {
+        return effectiveLifetime == LifetimeType.SCOPED;
+    }
+}
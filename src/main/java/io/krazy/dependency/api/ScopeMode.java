@@ -0,0 +1,22 @@
+package io.krazy.dependency.api;
+
+/**
+ * How a scope may be used across threads.
+ */
+public enum ScopeMode
+{
+    /**
+     * The scope may be used from any number of threads at once. Scoped
+     * services are constructed once even when requested concurrently.
+     */
+    SHARED,
+    /**
+     * The scope is used only by the thread that created it, for example an
+     * event-loop worker owning a request. It skips every lock and, by default,
+     * stores its services in a plain array. Using it from another thread fails
+     * with an {@link IllegalStateException}. Confined scopes are not tracked, so
+     * they are not part of the scope statistics, and the services of a confined
+     * scope that is never closed are not disposed of.
+     */
+    CONFINED
+}
@@ -0,0 +1,42 @@
+package io.krazy.dependency.api;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Counters of the scopes created by an {@link IServiceProvider}, used to find
+ * scopes that are never closed.
+ * <p>
+ * A scope is leaked when it becomes unreachable without being closed. The
+ * services of leaked scopes are disposed of on a background thread once the
+ * garbage collector has reclaimed the scope, so the leaked count lags behind
+ * the leak itself.
+ *
+ * @param createdCount  the number of scopes opened, counting every reuse of a
+ *                      pooled scope
+ * @param closedCount   the number of scopes closed
+ * @param leakedCount   the number of scopes reclaimed without being closed
+ * @param liveScopeAges the time since each open scope was opened, oldest first
+ */
+public record ScopeStatistics(long createdCount, long closedCount, long leakedCount, List<Duration> liveScopeAges)
+{
+    /**
+     * Returns the number of scopes that are open and still reachable.
+     *
+     * @return the number of live scopes
+     */
+    public int getLiveCount()
+    {
+        return liveScopeAges.size();
+    }
+
+    /**
+     * Returns the age of the oldest live scope.
+     *
+     * @return the age of the oldest live scope, zero if there is none
+     */
+    public Duration getOldestAge()
+    {
+        return liveScopeAges.isEmpty() ? Duration.ZERO : liveScopeAges.get(0);
+    }
+}
@@ -19,7 +19,8 @@ public final class ServiceDescriptor
     private final Class<?> implementationType;
 
     /**
-     * The lifetime of the service (Singleton, Transient, or Scoped).
+     * The lifetime of the service (Singleton, Transient, Scoped, Thread, or
+     * Cached).
      */
     @Getter
     private final LifetimeType lifetimeType;
@@ -30,6 +31,22 @@ public final class ServiceDescriptor
     @Getter
     private final @Nullable Object defaultInstance;
 
+    /**
+     * The type of the service decorated by the implementation, or null if this
+     * doesn't describe a decorator.
+     */
+    @Getter
+    private final @Nullable Class<?> decoratedType;
+
+    /**
+     * The transient service decorated by the implementation, or null if this
+     * doesn't describe a decorator. A new instance is constructed for every
+     * instance of the decorator and injected where it depends on
+     * {@link #getDecoratedType()}.
+     */
+    @Getter
+    private final @Nullable ServiceDescriptor decoratedDescriptor;
+
     /**
      * Creates a singleton service descriptor with the specified implementation
      * type.
@@ -78,11 +95,96 @@ public final class ServiceDescriptor
         return new ServiceDescriptor(implementationType, LifetimeType.SCOPED, null);
     }
 
+    /**
+     * Creates a per-thread service descriptor with the specified implementation
+     * type.
+     *
+     * @param implementationType the implementation class
+     * @return a new per-thread service descriptor
+     */
+    public static ServiceDescriptor forThread(Class<?> implementationType)
+    {
+        return new ServiceDescriptor(implementationType, LifetimeType.THREAD, null);
+    }
+
+    /**
+     * Creates a cached service descriptor with the specified implementation type.
+     *
+     * @param implementationType the implementation class
+     * @return a new cached service descriptor
+     */
+    public static ServiceDescriptor forCached(Class<?> implementationType)
+    {
+        return new ServiceDescriptor(implementationType, LifetimeType.CACHED, null);
+    }
+
+    /**
+     * Creates a service descriptor with the specified implementation type and
+     * lifetime.
+     *
+     * @param implementationType the implementation class
+     * @param lifetimeType       the lifetime of the service
+     * @return a new service descriptor
+     */
+    public static ServiceDescriptor forLifetime(Class<?> implementationType, LifetimeType lifetimeType)
+    {
+        return new ServiceDescriptor(implementationType, lifetimeType, null);
+    }
+
+    /**
+     * Creates a descriptor of a decorator taking the place of a service. The
+     * decorator keeps the lifetime of the service, while the service itself
+     * becomes transient and is owned by the decorator.
+     *
+     * @param decoratedType the type the service is registered and injected with
+     * @param decorated     the descriptor of the service
+     * @param decoratorType the implementation class of the decorator
+     * @return a new decorator descriptor
+     * @throws IllegalArgumentException if the decorator doesn't implement the
+     *                                  decorated type
+     */
+    public static ServiceDescriptor forDecorator(
+        Class<?> decoratedType,
+        ServiceDescriptor decorated,
+        Class<?> decoratorType
+    )
+    {
+        if (!decoratedType.isAssignableFrom(decoratorType))
+        {
+            throw new IllegalArgumentException(String.format(
+                "%s cannot decorate %s because it doesn't implement it.",
+                decoratorType.getName(),
+                decoratedType.getName()
+            ));
+        }
+
+        final ServiceDescriptor inner = new ServiceDescriptor(
+            decorated.implementationType,
+            LifetimeType.TRANSIENT,
+            decorated.defaultInstance,
+            decorated.decoratedType,
+            decorated.decoratedDescriptor
+        );
+
+        return new ServiceDescriptor(decoratorType, decorated.lifetimeType, null, decoratedType, inner);
+    }
+
     private ServiceDescriptor(
         Class<?> implementationType,
         LifetimeType lifetimeType,
         @Nullable Object defaultInstance
     )
+    {
+        this(implementationType, lifetimeType, defaultInstance, null, null);
+    }
+
+    private ServiceDescriptor(
+        Class<?> implementationType,
+        LifetimeType lifetimeType,
+        @Nullable Object defaultInstance,
+        @Nullable Class<?> decoratedType,
+        @Nullable ServiceDescriptor decoratedDescriptor
+    )
     {
         if (defaultInstance != null && implementationType != defaultInstance.getClass())
         {
@@ -94,6 +196,8 @@ public final class ServiceDescriptor
         this.implementationType = implementationType;
         this.lifetimeType = lifetimeType;
         this.defaultInstance = defaultInstance;
+        this.decoratedType = decoratedType;
+        this.decoratedDescriptor = decoratedDescriptor;
     }
 
     @Override
@@ -102,7 +206,8 @@ public final class ServiceDescriptor
         if (object instanceof ServiceDescriptor that)
         {
             return Objects.equals(implementationType, that.implementationType) &&
-                lifetimeType == that.lifetimeType;
+                lifetimeType == that.lifetimeType &&
+                Objects.equals(decoratedDescriptor, that.decoratedDescriptor);
         }
 
         return false;
@@ -111,6 +216,6 @@ public final class ServiceDescriptor
     @Override
     public int hashCode()
     {
-        return Objects.hash(implementationType, lifetimeType);
+        return Objects.hash(implementationType, lifetimeType, decoratedDescriptor);
     }
 }
\ No newline at end of file
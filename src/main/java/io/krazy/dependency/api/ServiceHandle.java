@@ -0,0 +1,41 @@
+package io.krazy.dependency.api;
+
+import lombok.Getter;
+
+/**
+ * A pre-resolved reference to a registered service. A handle binds the
+ * dependency record, lifetime and storage slot of a service once, so repeated
+ * requests skip the lookups done by
+ * {@link IServiceRequestable#requestService(Class)}.
+ * Handles are obtained with {@link IServiceRequestable#handleFor(Class)} and are
+ * safe to share between threads and scopes of the same provider.
+ *
+ * @param <T> the type of service
+ */
+public abstract class ServiceHandle<T>
+{
+    /**
+     * The type used to request the service.
+     */
+    @Getter
+    private final Class<T> serviceType;
+
+    /**
+     * Constructs a new ServiceHandle.
+     *
+     * @param serviceType the type used to request the service
+     */
+    protected ServiceHandle(Class<T> serviceType)
+    {
+        this.serviceType = serviceType;
+    }
+
+    /**
+     * Gets an instance of the service from the given provider or scope.
+     *
+     * @param requestable the provider or scope to resolve the service from
+     * @return an instance of the service
+     * @throws RuntimeException if the service cannot be resolved or created
+     */
+    public abstract T get(IServiceRequestable requestable) throws RuntimeException;
+}
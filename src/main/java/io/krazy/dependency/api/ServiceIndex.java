@@ -0,0 +1,110 @@
+package io.krazy.dependency.api;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+/**
+ * Reads the service index generated at compile time for classes annotated with
+ * {@link io.krazy.dependency.api.annotation.Service}.
+ * Each line of the index has the form
+ * {@code <lifetime> <mapping type> <implementation type>} using binary class
+ * names. Blank lines and lines starting with {@code #} are ignored.
+ */
+public final class ServiceIndex
+{
+    /**
+     * The location of the index in every jar or class output directory.
+     */
+    public static final String RESOURCE_PATH = "META-INF/krazy-di/services.index";
+
+    private ServiceIndex()
+    {
+    }
+
+    /**
+     * Formats a single index entry.
+     *
+     * @param lifetimeType       the lifetime of the service
+     * @param mappingType        the binary name of the mapping type
+     * @param implementationType the binary name of the implementation type
+     * @return the index line, without line terminator
+     */
+    public static String formatEntry(LifetimeType lifetimeType, String mappingType, String implementationType)
+    {
+        return lifetimeType.name() + ' ' + mappingType + ' ' + implementationType;
+    }
+
+    /**
+     * Registers every service listed in the indexes visible to a class loader.
+     *
+     * @param classLoader  the class loader used to find indexes and load classes
+     * @param configurator the configurator to register services with
+     * @return the number of registered services
+     * @throws IOException            if an index cannot be read or is malformed
+     * @throws ClassNotFoundException if an indexed class cannot be found
+     */
+    public static int load(ClassLoader classLoader, IServiceConfigurator configurator)
+        throws IOException, ClassNotFoundException
+    {
+        final Enumeration<URL> resources = classLoader.getResources(RESOURCE_PATH);
+        int count = 0;
+
+        while (resources.hasMoreElements())
+        {
+            count += load(resources.nextElement(), classLoader, configurator);
+        }
+
+        return count;
+    }
+
+    private static int load(URL resource, ClassLoader classLoader, IServiceConfigurator configurator)
+        throws IOException, ClassNotFoundException
+    {
+        int count = 0;
+        int lineNumber = 0;
+
+        try (var reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8)))
+        {
+            String line;
+
+            while ((line = reader.readLine()) != null)
+            {
+                lineNumber++;
+                line = line.strip();
+
+                if (line.isEmpty() || line.charAt(0) == '#')
+                {
+                    continue;
+                }
+
+                final String[] parts = line.split(" ");
+
+                if (parts.length != 3)
+                {
+                    throw new IOException(String.format("Malformed service index entry at %s:%d.", resource, lineNumber));
+                }
+
+                final LifetimeType lifetimeType;
+                try
+                {
+                    lifetimeType = LifetimeType.valueOf(parts[0]);
+                }
+                catch (IllegalArgumentException err)
+                {
+                    throw new IOException(String.format("Unknown lifetime '%s' at %s:%d.", parts[0], resource, lineNumber));
+                }
+
+                final Class<?> mappingType = Class.forName(parts[1], false, classLoader);
+                final Class<?> implementationType = Class.forName(parts[2], false, classLoader);
+                configurator.addDescriptor(mappingType, ServiceDescriptor.forLifetime(implementationType, lifetimeType));
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
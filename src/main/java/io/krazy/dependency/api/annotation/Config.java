@@ -0,0 +1,25 @@
+package io.krazy.dependency.api.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation used to inject a configuration value instead of a service into a
+ * constructor or method parameter, a field, or the single parameter of a method.
+ * Values are read from the configurator's configuration and converted once when
+ * the provider is built.
+ */
+@Target({ ElementType.PARAMETER, ElementType.FIELD, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Config
+{
+    /**
+     * The configuration key. Record values read each component from
+     * {@code <key>.<component>}.
+     *
+     * @return the configuration key
+     */
+    String value();
+}
@@ -0,0 +1,18 @@
+package io.krazy.dependency.api.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation used to mark the method called before a service is disposed of,
+ * ahead of {@link AutoCloseable#close()} for closeable services. The method
+ * takes no parameters. Transient services are not tracked, so their hook is
+ * never called.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnDispose
+{
+}
@@ -0,0 +1,20 @@
+package io.krazy.dependency.api.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation used to mark the method called once a service has been
+ * constructed and injected. The method takes no parameters and returns either
+ * nothing or a {@link java.util.concurrent.CompletionStage}. A returned stage
+ * lets the initialization of independent services overlap: the service is
+ * handed out only once the stage completes, and services depending on it are
+ * constructed only after that.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnInitialize
+{
+}
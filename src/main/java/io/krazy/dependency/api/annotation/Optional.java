@@ -0,0 +1,18 @@
+package io.krazy.dependency.api.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation used to mark a constructor or method parameter, a field, or every
+ * parameter of a method as an optional dependency. When no service is
+ * registered for its type, a parameter receives null and a field is left
+ * untouched instead of failing the mapping.
+ */
+@Target({ ElementType.PARAMETER, ElementType.FIELD, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Optional
+{
+}
@@ -0,0 +1,34 @@
+package io.krazy.dependency.api.annotation;
+
+import io.krazy.dependency.api.LifetimeType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation used to register a class as a service at compile time.
+ * Annotated classes are written to the service index by the
+ * {@code ServiceIndexProcessor} and registered with
+ * {@link io.krazy.dependency.api.IServiceConfigurator#addIndexedServices(ClassLoader)}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+public @interface Service
+{
+    /**
+     * The lifetime of the service.
+     *
+     * @return the lifetime type
+     */
+    LifetimeType lifetime();
+
+    /**
+     * The types used to request the service. The annotated class itself is used
+     * when empty.
+     *
+     * @return the mapping types
+     */
+    Class<?>[] as() default {};
+}
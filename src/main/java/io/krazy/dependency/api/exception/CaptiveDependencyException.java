@@ -0,0 +1,51 @@
+package io.krazy.dependency.api.exception;
+
+import io.krazy.dependency.api.ServiceDescriptor;
+import io.krazy.dependency.api.injector.AbstractDependencyInjector;
+import lombok.Getter;
+
+/**
+ * Exception thrown when a service would capture a dependency that lives
+ * shorter than itself, such as a singleton depending on a scoped service.
+ */
+public class CaptiveDependencyException extends DependencyException
+{
+    /**
+     * The descriptor of the longer-lived service.
+     */
+    @Getter
+    private final ServiceDescriptor consumerDescriptor;
+
+    /**
+     * The descriptor of the shorter-lived dependency.
+     */
+    @Getter
+    private final ServiceDescriptor dependencyDescriptor;
+
+    /**
+     * The injector requiring the dependency.
+     */
+    @Getter
+    private final AbstractDependencyInjector<?> injector;
+
+    /**
+     * Constructs a new CaptiveDependencyException.
+     *
+     * @param message              the detail message
+     * @param consumerDescriptor   the descriptor of the longer-lived service
+     * @param dependencyDescriptor the descriptor of the shorter-lived dependency
+     * @param injector             the injector requiring the dependency
+     */
+    public CaptiveDependencyException(
+        String message,
+        ServiceDescriptor consumerDescriptor,
+        ServiceDescriptor dependencyDescriptor,
+        AbstractDependencyInjector<?> injector
+    )
+    {
+        super(message);
+        this.consumerDescriptor = consumerDescriptor;
+        this.dependencyDescriptor = dependencyDescriptor;
+        this.injector = injector;
+    }
+}
@@ -0,0 +1,41 @@
+package io.krazy.dependency.api.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when a configuration value is missing or cannot be converted
+ * to the type of its injection point.
+ */
+public class ConfigurationException extends DependencyException
+{
+    /**
+     * The configuration key that failed.
+     */
+    @Getter
+    private final String key;
+
+    /**
+     * Constructs a new ConfigurationException.
+     *
+     * @param key     the configuration key that failed
+     * @param message the detail message
+     */
+    public ConfigurationException(String key, String message)
+    {
+        super(message);
+        this.key = key;
+    }
+
+    /**
+     * Constructs a new ConfigurationException with a cause.
+     *
+     * @param key     the configuration key that failed
+     * @param message the detail message
+     * @param cause   the cause of the failure
+     */
+    public ConfigurationException(String key, String message, Throwable cause)
+    {
+        super(message, cause);
+        this.key = key;
+    }
+}
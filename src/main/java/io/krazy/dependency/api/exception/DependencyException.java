@@ -14,4 +14,36 @@ public class DependencyException extends RuntimeException
     {
         super(message);
     }
+
+    /**
+     * Constructs a new DependencyException with the specified detail message and
+     * cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause of the exception
+     */
+    public DependencyException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+
+    /**
+     * Constructs a new DependencyException with the specified detail message,
+     * cause, suppression enabled or disabled, and writable stack trace enabled or
+     * disabled.
+     *
+     * @param message            the detail message
+     * @param cause              the cause of the exception
+     * @param enableSuppression  whether suppression is enabled
+     * @param writableStackTrace whether the stack trace is captured
+     */
+    protected DependencyException(
+        String message,
+        Throwable cause,
+        boolean enableSuppression,
+        boolean writableStackTrace
+    )
+    {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
 }
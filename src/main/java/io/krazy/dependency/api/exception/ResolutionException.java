@@ -0,0 +1,78 @@
+package io.krazy.dependency.api.exception;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Exception thrown when a service fails to resolve, for example when its
+ * constructor throws.
+ * <p>
+ * A single exception is thrown per failure, no matter how deep in the graph it
+ * happens. Each service on the way back to the requested one is added to the
+ * resolution path instead of wrapping the exception again, and the message is
+ * only formatted when read.
+ */
+public class ResolutionException extends DependencyException
+{
+    /**
+     * The service that failed to resolve.
+     */
+    @Getter
+    private final Class<?> failedType;
+
+    // Deepest service first, so unwinding only appends.
+    private final List<Class<?>> reversedPath = new ArrayList<>(4);
+
+    /**
+     * Constructs a new ResolutionException.
+     *
+     * @param failedType         the service that failed to resolve
+     * @param cause              the cause of the failure
+     * @param writableStackTrace whether the stack trace of this exception is
+     *                           captured, the cause keeps its own stack trace
+     *                           either way
+     */
+    public ResolutionException(Class<?> failedType, Throwable cause, boolean writableStackTrace)
+    {
+        super(null, cause, true, writableStackTrace);
+        this.failedType = failedType;
+        this.reversedPath.add(failedType);
+    }
+
+    /**
+     * Adds a service that was being resolved when the failure happened.
+     *
+     * @param type the service depending on the previous head of the path
+     */
+    public void addDependent(Class<?> type)
+    {
+        reversedPath.add(type);
+    }
+
+    /**
+     * Returns the services that were being resolved, starting with the
+     * requested service and ending with the one that failed.
+     *
+     * @return the resolution path
+     */
+    public List<Class<?>> getResolutionPath()
+    {
+        final List<Class<?>> output = new ArrayList<>(reversedPath);
+        Collections.reverse(output);
+        return Collections.unmodifiableList(output);
+    }
+
+    @Override
+    public String getMessage()
+    {
+        final String path = getResolutionPath().stream()
+            .map(Class::getTypeName)
+            .collect(Collectors.joining(" -> "));
+
+        return String.format("Exception when trying to resolve '%s': %s", failedType.getTypeName(), path);
+    }
+}
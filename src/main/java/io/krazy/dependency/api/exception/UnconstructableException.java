@@ -45,7 +45,11 @@ public class UnconstructableException extends DependencyException
         /**
          * No valid public/annotated constructor exists.
          */
-        NO_VALID_CONSTRUCTOR
+        NO_VALID_CONSTRUCTOR,
+        /**
+         * A lifecycle hook is duplicated or has an invalid signature.
+         */
+        INVALID_LIFECYCLE_HOOK
     }
 
     /**
@@ -137,6 +141,7 @@ public class UnconstructableException extends DependencyException
                 "Cannot construct %s because it doesn't have public or default constructorInjector or constructorInjector with Injection annotation.",
                 typeName
             );
+            case INVALID_LIFECYCLE_HOOK -> String.format("%s has an invalid lifecycle hook.", typeName);
         };
     }
 }
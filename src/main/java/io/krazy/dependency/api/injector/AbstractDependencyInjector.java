@@ -6,7 +6,11 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Member;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -56,6 +60,50 @@ public abstract sealed class AbstractDependencyInjector<T extends Member>
         return MethodHandles.privateLookupIn(klass, lookup);
     }
 
+    /**
+     * Binds constant values to some parameters of a method handle.
+     *
+     * @param handle    the handle to bind
+     * @param offset    the number of leading handle parameters that aren't
+     *                  injected, such as the receiver of an instance method
+     * @param constants the values to bind, keyed by injected parameter index
+     * @return the handle without the bound parameters
+     */
+    protected static MethodHandle bindConstants(MethodHandle handle, int offset, Map<Integer, Object> constants)
+    {
+        MethodHandle output = handle;
+
+        // Bind from the last parameter so earlier indexes stay valid.
+        for (var entry : new TreeMap<>(constants).descendingMap().entrySet())
+        {
+            output = MethodHandles.insertArguments(output, offset + entry.getKey(), entry.getValue());
+        }
+
+        return output;
+    }
+
+    /**
+     * Removes the bound parameters from a list of expected types.
+     *
+     * @param expectedTypes the expected types of every parameter
+     * @param constants     the bound values, keyed by parameter index
+     * @return the expected types of the remaining parameters
+     */
+    protected static List<Class<?>> unboundTypes(List<Class<?>> expectedTypes, Map<Integer, Object> constants)
+    {
+        final List<Class<?>> output = new ArrayList<>(expectedTypes.size());
+
+        for (int i = 0; i < expectedTypes.size(); i++)
+        {
+            if (!constants.containsKey(i))
+            {
+                output.add(expectedTypes.get(i));
+            }
+        }
+
+        return List.copyOf(output);
+    }
+
     /**
      * Formats the parameters of an executable (method or constructor) as a string.
      *
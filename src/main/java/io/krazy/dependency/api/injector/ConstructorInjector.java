@@ -5,6 +5,7 @@ import lombok.Getter;
 import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Injector for class constructors.
@@ -16,6 +17,14 @@ public final class ConstructorInjector extends AbstractDependencyInjector<Constr
     @Getter
     private final List<Class<?>> expectedTypes;
 
+    /**
+     * The method handle adapted to take all arguments as a single
+     * {@code Object[]} and return {@code Object}, suitable for
+     * {@link MethodHandle#invokeExact}.
+     */
+    @Getter
+    private final MethodHandle factoryHandle;
+
     /**
      * Creates a new ConstructorInjector from a reflected constructor.
      *
@@ -31,6 +40,24 @@ public final class ConstructorInjector extends AbstractDependencyInjector<Constr
         return new ConstructorInjector(constructor, handle, expectedTypes);
     }
 
+    /**
+     * Creates a copy of this injector with constant values bound to some of its
+     * parameters. Bound parameters are removed from the expected types.
+     *
+     * @param constants the values to bind, keyed by parameter index
+     * @return a new ConstructorInjector
+     */
+    public ConstructorInjector withConstants(Map<Integer, Object> constants) {
+        if (constants.isEmpty()) {
+            return this;
+        }
+
+        return new ConstructorInjector(
+                getMember(),
+                bindConstants(getMethodHandle(), 0, constants),
+                unboundTypes(expectedTypes, constants));
+    }
+
     /**
      * Constructs a new ConstructorInjector.
      *
@@ -44,6 +71,8 @@ public final class ConstructorInjector extends AbstractDependencyInjector<Constr
             List<Class<?>> expectedTypes) {
         super(member, methodHandle);
         this.expectedTypes = expectedTypes;
+        this.factoryHandle = methodHandle.asType(methodHandle.type().generic())
+                .asSpreader(Object[].class, expectedTypes.size());
     }
 
     @Override
@@ -1,6 +1,7 @@
 package io.krazy.dependency.api.injector;
 
 import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
@@ -17,6 +18,17 @@ public final class FieldInjector extends AbstractDependencyInjector<Field>
      */
     private final Class<?> expectedType;
 
+    /**
+     * Whether the field is injected with {@link #getConstantValue()} instead of a
+     * service.
+     */
+    private final boolean constant;
+
+    /**
+     * The value injected into the field when it is constant.
+     */
+    private final @Nullable Object constantValue;
+
     /**
      * Creates a new FieldInjector from a reflected field.
      *
@@ -41,20 +53,42 @@ public final class FieldInjector extends AbstractDependencyInjector<Field>
         final MethodHandle handle = getHandleLookup(field.getDeclaringClass())
             .unreflectSetter(field);
 
-        return new FieldInjector(field, handle, type);
+        return new FieldInjector(field, handle, type, false, null);
+    }
+
+    /**
+     * Creates a copy of this injector that injects a constant value instead of a
+     * service.
+     *
+     * @param value the value to inject
+     * @return a new FieldInjector
+     */
+    public FieldInjector withConstant(@Nullable Object value)
+    {
+        return new FieldInjector(getMember(), getMethodHandle(), expectedType, true, value);
     }
 
     /**
      * Constructs a new FieldInjector.
      *
-     * @param member       the field to inject
-     * @param methodHandle the method handle for setting the field
-     * @param expectedType the expected type of the dependency
+     * @param member        the field to inject
+     * @param methodHandle  the method handle for setting the field
+     * @param expectedType  the expected type of the dependency
+     * @param constant      whether a constant value is injected
+     * @param constantValue the constant value
      */
-    private FieldInjector(Field member, MethodHandle methodHandle, Class<?> expectedType)
+    private FieldInjector(
+        Field member,
+        MethodHandle methodHandle,
+        Class<?> expectedType,
+        boolean constant,
+        @Nullable Object constantValue
+    )
     {
         super(member, methodHandle);
         this.expectedType = expectedType;
+        this.constant = constant;
+        this.constantValue = constantValue;
     }
 
     @Override
@@ -7,6 +7,7 @@ import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Injector for class methods.
@@ -58,6 +59,27 @@ public final class MethodInjector extends AbstractDependencyInjector<Method>
         return Modifier.isStatic(getMember().getModifiers());
     }
 
+    /**
+     * Creates a copy of this injector with constant values bound to some of its
+     * parameters. Bound parameters are removed from the expected types.
+     *
+     * @param constants the values to bind, keyed by parameter index
+     * @return a new MethodInjector
+     */
+    public MethodInjector withConstants(Map<Integer, Object> constants)
+    {
+        if (constants.isEmpty())
+        {
+            return this;
+        }
+
+        return new MethodInjector(
+            getMember(),
+            bindConstants(getMethodHandle(), isStatic() ? 0 : 1, constants),
+            unboundTypes(expectedTypes, constants)
+        );
+    }
+
     /**
      * Constructs a new MethodInjector.
      *
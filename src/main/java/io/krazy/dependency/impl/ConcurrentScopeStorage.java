@@ -0,0 +1,116 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.IScopeStorage;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe {@link IScopeStorage} indexed by slot. Reads are a single volatile
+ * array load, and the lock of a slot is only created when the slot is first
+ * constructed, so scopes that request few of many scoped services stay small.
+ */
+public final class ConcurrentScopeStorage implements IScopeStorage
+{
+    private final AtomicReferenceArray<Object> instances;
+    private final AtomicReferenceArray<ReentrantLock> locks;
+
+    public ConcurrentScopeStorage(int slotCount)
+    {
+        this.instances = new AtomicReferenceArray<>(slotCount);
+        this.locks = new AtomicReferenceArray<>(slotCount);
+    }
+
+    @Override
+    public @Nullable Object get(int slot)
+    {
+        return instances.get(slot);
+    }
+
+    @Override
+    public Object computeIfAbsent(int slot, Supplier<?> factory)
+    {
+        @Nullable Object instance = instances.get(slot);
+
+        if (instance != null)
+        {
+            return instance;
+        }
+
+        final ReentrantLock lock = getLock(slot);
+
+        lock.lock();
+        try
+        {
+            instance = instances.get(slot);
+
+            if (instance == null)
+            {
+                instance = factory.get();
+                instances.set(slot, instance);
+            }
+
+            return instance;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock getLock(int slot)
+    {
+        final @Nullable ReentrantLock lock = locks.get(slot);
+
+        if (lock != null)
+        {
+            return lock;
+        }
+
+        final ReentrantLock created = new ReentrantLock();
+        return locks.compareAndSet(slot, null, created) ? created : locks.get(slot);
+    }
+
+    @Override
+    public int size()
+    {
+        int output = 0;
+
+        for (int i = 0; i < instances.length(); i++)
+        {
+            if (instances.get(i) != null)
+            {
+                output++;
+            }
+        }
+
+        return output;
+    }
+
+    @Override
+    public void forEach(ObjIntConsumer<Object> action)
+    {
+        for (int i = 0; i < instances.length(); i++)
+        {
+            final @Nullable Object instance = instances.get(i);
+
+            if (instance != null)
+            {
+                action.accept(instance, i);
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        // Locks are kept, a reused scope is likely to construct the same slots.
+        for (int i = 0; i < instances.length(); i++)
+        {
+            instances.set(i, null);
+        }
+    }
+}
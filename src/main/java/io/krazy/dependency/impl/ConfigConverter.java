@@ -0,0 +1,204 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.exception.ConfigurationException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Converts raw configuration values to the types of their injection points.
+ * Converters are looked up once per type, and values are converted once per
+ * injection point while mapping, so constructing a service never parses them.
+ */
+final class ConfigConverter
+{
+    private static final Map<Class<?>, Function<String, Object>> SCALAR_CONVERTERS = Map.ofEntries(
+        Map.entry(String.class, it -> it),
+        Map.entry(int.class, Integer::valueOf),
+        Map.entry(Integer.class, Integer::valueOf),
+        Map.entry(long.class, Long::valueOf),
+        Map.entry(Long.class, Long::valueOf),
+        Map.entry(short.class, Short::valueOf),
+        Map.entry(Short.class, Short::valueOf),
+        Map.entry(byte.class, Byte::valueOf),
+        Map.entry(Byte.class, Byte::valueOf),
+        Map.entry(double.class, Double::valueOf),
+        Map.entry(Double.class, Double::valueOf),
+        Map.entry(float.class, Float::valueOf),
+        Map.entry(Float.class, Float::valueOf),
+        Map.entry(boolean.class, ConfigConverter::parseBoolean),
+        Map.entry(Boolean.class, ConfigConverter::parseBoolean),
+        Map.entry(char.class, ConfigConverter::parseCharacter),
+        Map.entry(Character.class, ConfigConverter::parseCharacter),
+        Map.entry(Duration.class, ConfigConverter::parseDuration)
+    );
+
+    private final Map<String, String> source;
+    // Shared by the modules that are mapped in parallel.
+    private final Map<Class<?>, Function<String, Object>> enumConverters = new ConcurrentHashMap<>();
+
+    ConfigConverter(Map<String, String> source)
+    {
+        this.source = source;
+    }
+
+    /**
+     * Reads and converts the value of a key. Record types are built from one key
+     * per component, named {@code <key>.<component>}.
+     */
+    public Object convert(String key, Class<?> type)
+    {
+        if (type.isRecord())
+        {
+            return convertRecord(key, type);
+        }
+
+        final Function<String, Object> converter = findConverter(key, type);
+        final String raw = source.get(key);
+
+        if (raw == null)
+        {
+            throw new ConfigurationException(key, String.format("Missing configuration value for key '%s'.", key));
+        }
+
+        try
+        {
+            return converter.apply(raw.strip());
+        }
+        catch (IllegalArgumentException | DateTimeParseException err)
+        {
+            throw new ConfigurationException(
+                key,
+                String.format("Cannot convert configuration value '%s' of key '%s' to %s.", raw, key, type.getName()),
+                err
+            );
+        }
+    }
+
+    private Object convertRecord(String key, Class<?> type)
+    {
+        final RecordComponent[] components = type.getRecordComponents();
+        final Object[] values = new Object[components.length];
+
+        for (int i = 0; i < components.length; i++)
+        {
+            values[i] = convert(key + "." + components[i].getName(), components[i].getType());
+        }
+
+        final Class<?>[] componentTypes = Arrays.stream(components)
+            .map(RecordComponent::getType)
+            .toArray(Class<?>[]::new);
+
+        try
+        {
+            final Constructor<?> constructor = type.getDeclaredConstructor(componentTypes);
+            constructor.setAccessible(true);
+            return constructor.newInstance(values);
+        }
+        catch (InvocationTargetException err)
+        {
+            throw new ConfigurationException(
+                key,
+                String.format("Cannot create %s from configuration key '%s'.", type.getName(), key),
+                err.getCause()
+            );
+        }
+        catch (ReflectiveOperationException | RuntimeException err)
+        {
+            throw new ConfigurationException(
+                key,
+                String.format("Cannot create %s from configuration key '%s'.", type.getName(), key),
+                err
+            );
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Function<String, Object> findConverter(String key, Class<?> type)
+    {
+        final Function<String, Object> scalar = SCALAR_CONVERTERS.get(type);
+
+        if (scalar != null)
+        {
+            return scalar;
+        }
+
+        if (type.isEnum())
+        {
+            return enumConverters.computeIfAbsent(
+                type,
+                it -> raw -> Enum.valueOf((Class<? extends Enum>) it, raw.toUpperCase(Locale.ROOT))
+            );
+        }
+
+        throw new ConfigurationException(
+            key,
+            String.format("Configuration key '%s' cannot be converted to unsupported type %s.", key, type.getName())
+        );
+    }
+
+    private static Object parseBoolean(String raw)
+    {
+        if (raw.equalsIgnoreCase("true"))
+        {
+            return Boolean.TRUE;
+        }
+        else if (raw.equalsIgnoreCase("false"))
+        {
+            return Boolean.FALSE;
+        }
+
+        throw new IllegalArgumentException("Not a boolean: " + raw);
+    }
+
+    private static Object parseCharacter(String raw)
+    {
+        if (raw.length() != 1)
+        {
+            throw new IllegalArgumentException("Not a single character: " + raw);
+        }
+
+        return raw.charAt(0);
+    }
+
+    /**
+     * Parses either an ISO-8601 duration or a number with an optional
+     * {@code ms}, {@code s}, {@code m}, {@code h} or {@code d} suffix. Numbers
+     * without a suffix are milliseconds.
+     */
+    private static Object parseDuration(String raw)
+    {
+        final String lower = raw.toLowerCase(Locale.ROOT);
+
+        if (lower.startsWith("p") || lower.startsWith("-p"))
+        {
+            return Duration.parse(raw);
+        }
+
+        int unitStart = lower.length();
+        while (unitStart > 0 && Character.isLetter(lower.charAt(unitStart - 1)))
+        {
+            unitStart--;
+        }
+
+        final long amount = Long.parseLong(lower.substring(0, unitStart).strip());
+
+        return switch (lower.substring(unitStart))
+        {
+            case "", "ms" -> Duration.ofMillis(amount);
+            case "s" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            case "d" -> Duration.ofDays(amount);
+            default -> throw new IllegalArgumentException("Unknown duration unit: " + raw);
+        };
+    }
+}
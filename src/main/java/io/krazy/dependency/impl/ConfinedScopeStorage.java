@@ -0,0 +1,77 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.IScopeStorage;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link IScopeStorage} backed by a plain array, without locks or memory
+ * barriers. It must only be used by a single thread, such as the owner of a
+ * {@link io.krazy.dependency.api.ScopeMode#CONFINED} scope.
+ */
+public final class ConfinedScopeStorage implements IScopeStorage
+{
+    private final Object[] instances;
+
+    public ConfinedScopeStorage(int slotCount)
+    {
+        this.instances = new Object[slotCount];
+    }
+
+    @Override
+    public @Nullable Object get(int slot)
+    {
+        return instances[slot];
+    }
+
+    @Override
+    public Object computeIfAbsent(int slot, Supplier<?> factory)
+    {
+        @Nullable Object instance = instances[slot];
+
+        if (instance == null)
+        {
+            instance = factory.get();
+            instances[slot] = instance;
+        }
+
+        return instance;
+    }
+
+    @Override
+    public int size()
+    {
+        int output = 0;
+
+        for (Object instance : instances)
+        {
+            if (instance != null)
+            {
+                output++;
+            }
+        }
+
+        return output;
+    }
+
+    @Override
+    public void forEach(ObjIntConsumer<Object> action)
+    {
+        for (int i = 0; i < instances.length; i++)
+        {
+            if (instances[i] != null)
+            {
+                action.accept(instances[i], i);
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(instances, null);
+    }
+}
@@ -1,8 +1,14 @@
 package io.krazy.dependency.impl;
 
 import io.krazy.dependency.api.*;
+import io.krazy.dependency.api.annotation.Config;
 import io.krazy.dependency.api.annotation.InjectDependency;
+import io.krazy.dependency.api.annotation.OnDispose;
+import io.krazy.dependency.api.annotation.OnInitialize;
+import io.krazy.dependency.api.exception.CaptiveDependencyException;
 import io.krazy.dependency.api.exception.CircularDependencyException;
+import io.krazy.dependency.api.exception.ConfigurationException;
+import io.krazy.dependency.api.exception.DependencyException;
 import io.krazy.dependency.api.exception.NoSuchServiceException;
 import io.krazy.dependency.api.exception.UnconstructableException;
 import io.krazy.dependency.api.injector.AbstractDependencyInjector;
@@ -14,36 +20,69 @@ import org.jetbrains.annotations.Nullable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class DefaultDependencyMapper implements IDependencyMapper
 {
+    // Stands in for a configuration value that failed to convert and was reported.
+    private static final Object FAILED_VALUE = new Object();
+
+    private static final System.Logger LOGGER = System.getLogger(DefaultDependencyMapper.class.getName());
+
     private final boolean isAbleToResolvePrivate;
     private final IServiceConfigurator configurator;
 
-    private static class SearchStackData
+    private static class MappingNode
     {
         final ServiceDescriptor descriptor;
-        final ConstructorInjector ctorInjector;
+        final int index;
+        @Nullable ConstructorInjector ctorInjector;
         final List<FieldInjector> fieldInjectorList = new ArrayList<>();
         final List<MethodInjector> methodInjectorList = new ArrayList<>();
-        AbstractDependencyInjector<?> lastestInjector;
-        boolean isVisited;
 
-        public SearchStackData(ServiceDescriptor descriptor, ConstructorInjector ctorInjector)
-        {
-            this.descriptor = descriptor;
-            this.ctorInjector = ctorInjector;
-            this.lastestInjector = ctorInjector;
-        }
+        // Outgoing edges, each paired with the injector that requires the target.
+        final List<MappingNode> edgeTargets = new ArrayList<>();
+        final List<AbstractDependencyInjector<?>> edgeInjectors = new ArrayList<>();
+
+        // Every registered dependency, including services published by an earlier
+        // lazy mapping that have no node.
+        final List<ServiceDescriptor> dependencyDescriptors = new ArrayList<>();
+        final List<AbstractDependencyInjector<?>> dependencyInjectors = new ArrayList<>();
+
+        // Injection points found by reflectMembers, linked into edges by linkNode.
+        @Nullable Executable constructor;
+        Map<Integer, Object> ctorArguments = Map.of();
+        final List<Map<Integer, Object>> methodArguments = new ArrayList<>();
+        final List<FieldInjector> serviceFields = new ArrayList<>();
 
-        public void addFieldInjector(FieldInjector injector)
+        // Problems found while reflecting, kept per node so that nodes can be
+        // reflected in parallel and still report in a stable order.
+        final List<DependencyException> problems = new ArrayList<>();
+
+        LifetimeType effectiveLifetime;
+        @Nullable ResolutionPlan plan;
+        LifecycleHooks hooks = LifecycleHooks.NONE;
+
+        // Node of the service wrapped by a decorator, found while linking.
+        @Nullable MappingNode decoratedNode;
+
+        public MappingNode(ServiceDescriptor descriptor, int index)
         {
-            fieldInjectorList.add(injector);
+            this.descriptor = descriptor;
+            this.index = index;
+            this.effectiveLifetime = descriptor.getLifetimeType();
         }
 
-        public void addMethodInjector(MethodInjector injector)
+        public void addEdge(MappingNode target, AbstractDependencyInjector<?> injector)
         {
-            methodInjectorList.add(injector);
+            edgeTargets.add(target);
+            edgeInjectors.add(injector);
         }
 
         public DependencyRecord toDependencyRecord()
@@ -52,20 +91,93 @@ public class DefaultDependencyMapper implements IDependencyMapper
                 descriptor,
                 ctorInjector,
                 fieldInjectorList,
-                methodInjectorList
+                methodInjectorList,
+                plan,
+                hooks,
+                decoratedNode == null ? null : decoratedNode.toDependencyRecord()
             );
         }
     }
 
-    private static class SearchContext
+    private static class MappingContext
     {
         final Map<Class<?>, ServiceDescriptor> descriptorMap;
-        final Map<ServiceDescriptor, SearchStackData> searchMap = new HashMap<>();
-        final Stack<SearchStackData> searchStack = new Stack<>();
 
-        private SearchContext(Map<Class<?>, ServiceDescriptor> descriptorMap)
+        // Every type a descriptor is registered under, so aliases share one node.
+        final Map<ServiceDescriptor, List<Class<?>>> typesByDescriptor;
+        final Predicate<ServiceDescriptor> isPublished;
+        final ConfigConverter configConverter;
+        final @Nullable MappingResult published;
+        final Map<ServiceDescriptor, MappingNode> nodeMap = new IdentityHashMap<>();
+        final List<MappingNode> nodes = new ArrayList<>();
+        final Set<Class<?>> missingTypes = new HashSet<>();
+        final List<DependencyException> problems = new ArrayList<>();
+        final BuildReport.@Nullable Recorder recorder;
+
+        private MappingContext(
+            Map<Class<?>, ServiceDescriptor> descriptorMap,
+            Map<ServiceDescriptor, List<Class<?>>> typesByDescriptor,
+            Predicate<ServiceDescriptor> isPublished,
+            @Nullable MappingResult published,
+            Map<String, String> configurationMap,
+            BuildReport.@Nullable Recorder recorder
+        )
         {
             this.descriptorMap = descriptorMap;
+            this.typesByDescriptor = typesByDescriptor;
+            this.isPublished = isPublished;
+            this.published = published;
+            this.configConverter = new ConfigConverter(configurationMap);
+            this.recorder = recorder;
+        }
+
+        public long startTiming()
+        {
+            return recorder != null ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Records the time since {@code mark} and returns the new mark.
+         */
+        public long lap(@Nullable Class<?> serviceType, BuildReport.Phase phase, long mark)
+        {
+            if (recorder == null)
+            {
+                return 0;
+            }
+
+            final long now = System.nanoTime();
+
+            if (serviceType != null)
+            {
+                recorder.record(serviceType, phase, now - mark);
+            }
+            else
+            {
+                recorder.record(phase, now - mark);
+            }
+
+            return now;
+        }
+
+        public @Nullable MappingNode getOrCreateNode(ServiceDescriptor descriptor)
+        {
+            final @Nullable MappingNode node = nodeMap.get(descriptor);
+
+            if (node != null)
+            {
+                return node;
+            }
+
+            if (isPublished.test(descriptor))
+            {
+                return null;
+            }
+
+            final MappingNode created = new MappingNode(descriptor, nodes.size());
+            nodeMap.put(descriptor, created);
+            nodes.add(created);
+            return created;
         }
     }
 
@@ -90,116 +202,943 @@ public class DefaultDependencyMapper implements IDependencyMapper
     @Override
     public final MappingResult computeMapping()
         throws IllegalAccessException, NoSuchServiceException, CircularDependencyException
+    {
+        return computeMapping(null);
+    }
+
+    @Override
+    public final MappingResult computeMapping(BuildReport.@Nullable Recorder recorder)
+        throws IllegalAccessException, NoSuchServiceException, CircularDependencyException
     {
         final Map<Class<?>, ServiceDescriptor> descriptorMap = configurator.getDescriptorMap();
-        final SearchContext searchContext = new SearchContext(descriptorMap);
+        final MappingContext context = new MappingContext(
+            descriptorMap,
+            indexTypesByDescriptor(descriptorMap),
+            it -> false,
+            null,
+            configurator.getConfigurationMap(),
+            recorder
+        );
 
         for (ServiceDescriptor descriptor : descriptorMap.values())
         {
-            search(descriptor, searchContext);
+            context.getOrCreateNode(descriptor);
+        }
+
+        return new MappingResult(
+            Collections.unmodifiableMap(mapModuleNodes(context))
+        );
+    }
+
+    @Override
+    public final MappingResult computeLazyMapping()
+    {
+        final Map<Class<?>, ServiceDescriptor> descriptorMap = Map.copyOf(configurator.getDescriptorMap());
+        final Map<String, String> configurationMap = Map.copyOf(configurator.getConfigurationMap());
+        final Map<ServiceDescriptor, List<Class<?>>> typesByDescriptor = indexTypesByDescriptor(descriptorMap);
+
+        return MappingResult.lazy(
+            descriptorMap,
+            (type, published) -> mapSubgraph(
+                descriptorMap,
+                typesByDescriptor,
+                configurationMap,
+                descriptorMap.get(type),
+                published
+            )
+        );
+    }
+
+    /**
+     * Maps and validates the services reachable from a single descriptor,
+     * skipping services whose records were already published.
+     */
+    private Map<Class<?>, DependencyRecord> mapSubgraph(
+        Map<Class<?>, ServiceDescriptor> descriptorMap,
+        Map<ServiceDescriptor, List<Class<?>>> typesByDescriptor,
+        Map<String, String> configurationMap,
+        ServiceDescriptor root,
+        MappingResult published
+    )
+        throws IllegalAccessException
+    {
+        final MappingContext context = new MappingContext(
+            descriptorMap,
+            typesByDescriptor,
+            it ->
+            {
+                // Decorated services are part of their decorator's record.
+                final @Nullable List<Class<?>> types = typesByDescriptor.get(it);
+                return types != null && published.isRecordMapped(types.get(0));
+            },
+            published,
+            configurationMap,
+            null
+        );
+
+        context.getOrCreateNode(root);
+        return mapNodes(context);
+    }
+
+    private Map<Class<?>, DependencyRecord> mapNodes(MappingContext context) throws IllegalAccessException
+    {
+        // Nodes discovered while linking are appended and visited in turn.
+        for (int i = 0; i < context.nodes.size(); i++)
+        {
+            final MappingNode node = context.nodes.get(i);
+            reflectMembers(node, context);
+            linkNode(node, context);
+        }
+
+        return validateNodes(context);
+    }
+
+    /**
+     * Maps a graph whose nodes are all known upfront. The members of each
+     * module are reflected in parallel, and only the edges, which may cross
+     * modules, are linked and validated afterwards on the calling thread.
+     */
+    private Map<Class<?>, DependencyRecord> mapModuleNodes(MappingContext context) throws IllegalAccessException
+    {
+        final Map<@Nullable IServiceModule, List<MappingNode>> modules = new LinkedHashMap<>();
+
+        for (MappingNode node : context.nodes)
+        {
+            final Class<?> type = context.typesByDescriptor.get(node.descriptor).get(0);
+            modules.computeIfAbsent(configurator.getModule(type), it -> new ArrayList<>()).add(node);
+        }
+
+        if (modules.size() > 1)
+        {
+            reflectInParallel(modules.values(), context);
+        }
+        else
+        {
+            for (MappingNode node : context.nodes)
+            {
+                reflectMembers(node, context);
+            }
+        }
+
+        // The services wrapped by decorators are only discovered while linking.
+        final int nodeCount = context.nodes.size();
+        for (int i = 0; i < context.nodes.size(); i++)
+        {
+            final MappingNode node = context.nodes.get(i);
+
+            if (i >= nodeCount)
+            {
+                reflectMembers(node, context);
+            }
+
+            linkNode(node, context);
+        }
+
+        return validateNodes(context);
+    }
+
+    private void reflectInParallel(Collection<List<MappingNode>> modules, MappingContext context)
+        throws IllegalAccessException
+    {
+        final List<Callable<Void>> tasks = new ArrayList<>(modules.size());
+
+        for (List<MappingNode> module : modules)
+        {
+            tasks.add(() ->
+            {
+                for (MappingNode node : module)
+                {
+                    reflectMembers(node, context);
+                }
+
+                return null;
+            });
+        }
+
+        try
+        {
+            for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(tasks))
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException err)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while mapping services.", err);
+        }
+        catch (ExecutionException err)
+        {
+            switch (err.getCause())
+            {
+                case IllegalAccessException cause -> throw cause;
+                case RuntimeException cause -> throw cause;
+                case Error cause -> throw cause;
+                default -> throw new IllegalStateException(err.getCause());
+            }
+        }
+    }
+
+    private Map<Class<?>, DependencyRecord> validateNodes(MappingContext context)
+    {
+        final List<DependencyException> problems = context.problems;
+
+        // Reflection problems first, in node order, then those found while linking.
+        final List<DependencyException> linkProblems = List.copyOf(problems);
+        problems.clear();
+
+        for (MappingNode node : context.nodes)
+        {
+            problems.addAll(node.problems);
+        }
+
+        problems.addAll(linkProblems);
+
+        final long mark = context.startTiming();
+        final int[] completionOrder = findCycles(context.nodes, problems);
+
+        // Lifetimes are only meaningful on an acyclic graph.
+        if (problems.isEmpty())
+        {
+            analyzeLifetimes(completionOrder, context);
+        }
+
+        context.lap(null, BuildReport.Phase.VALIDATION, mark);
+
+        if (!problems.isEmpty())
+        {
+            final DependencyException first = problems.get(0);
+
+            for (int i = 1; i < problems.size(); i++)
+            {
+                first.addSuppressed(problems.get(i));
+            }
+
+            throw first;
         }
 
         final Map<Class<?>, DependencyRecord> output = new HashMap<>();
-        for (var entry : searchContext.searchMap.entrySet())
+        for (MappingNode node : context.nodes)
         {
-            output.put(
-                entry.getKey().getImplementationType(),
-                entry.getValue().toDependencyRecord()
-            );
+            final @Nullable List<Class<?>> types = context.typesByDescriptor.get(node.descriptor);
+
+            // Decorated services are nested in the record of their decorator.
+            if (types == null)
+            {
+                continue;
+            }
+
+            final DependencyRecord record = node.toDependencyRecord();
+
+            for (Class<?> type : types)
+            {
+                output.put(type, record);
+            }
         }
 
-        return new MappingResult(
-            Collections.unmodifiableMap(output)
-        );
+        return output;
     }
 
-    private void search(ServiceDescriptor currentDescriptor, SearchContext context)
-        throws IllegalAccessException, NoSuchServiceException, CircularDependencyException
+    private static Map<ServiceDescriptor, List<Class<?>>> indexTypesByDescriptor(
+        Map<Class<?>, ServiceDescriptor> descriptorMap
+    )
     {
-        final Class<?> implType = currentDescriptor.getImplementationType();
+        final Map<ServiceDescriptor, List<Class<?>>> output = new IdentityHashMap<>();
+
+        for (var entry : descriptorMap.entrySet())
+        {
+            output.computeIfAbsent(entry.getValue(), it -> new ArrayList<>(1)).add(entry.getKey());
+        }
+
+        return output;
+    }
+
+    /**
+     * Finds the injection points of a node and creates their injectors. Only
+     * touches the node itself, so distinct nodes can be reflected in parallel.
+     */
+    private void reflectMembers(MappingNode node, MappingContext context) throws IllegalAccessException
+    {
+        final Class<?> implType = node.descriptor.getImplementationType();
+        long mark = context.startTiming();
+
         final Constructor<?> constructor = findInjectorOrDefaultConstructor(implType);
-        final ConstructorInjector ctorInjector = ConstructorInjector.from(constructor);
-        final SearchStackData searchStackData = context.searchMap.computeIfAbsent(
-            currentDescriptor,
-            it -> new SearchStackData(currentDescriptor, ctorInjector)
-        );
+        final Map<Integer, Object> ctorConfig = findBoundArguments(constructor, null, node, context);
 
-        if (context.searchStack.contains(searchStackData))
+        // Record fields are final and its methods are accessors, so the canonical
+        // constructor is the only injection point.
+        final Collection<Field> fields = implType.isRecord() ? List.of() : findInjectorFields(implType);
+        final Collection<Method> methods = implType.isRecord() ? List.of() : findInjectorMethods(implType);
+        final Map<Field, Object> fieldConfig = new HashMap<>();
+        final Set<Field> absentFields = new HashSet<>();
+        final List<Map<Integer, Object>> methodConfig = new ArrayList<>(methods.size());
+
+        for (Field field : fields)
         {
-            throw new CircularDependencyException(
-                "Circular dependency occurred when mapping configuration",
-                currentDescriptor,
-                context.searchStack.stream()
-                    .map(it -> it.lastestInjector)
-                    .toList()
+            final @Nullable Config config = field.getAnnotation(Config.class);
+
+            if (config != null)
+            {
+                fieldConfig.put(field, convertConfig(config.value(), field.getType(), node, context));
+            }
+            else if (hasOptionalAnnotation(field) && isAbsentOptional(field.getType(), context))
+            {
+                absentFields.add(field);
+            }
+        }
+
+        for (Method method : methods)
+        {
+            if (Modifier.isStatic(method.getModifiers()))
+            {
+                throw new AssertionError("Mapper shouldn't handle static method.");
+            }
+
+            methodConfig.add(findBoundArguments(method, method.getAnnotation(Config.class), node, context));
+        }
+
+        final @Nullable Method initializer = findLifecycleMethod(implType, OnInitialize.class, node);
+        final @Nullable Method disposer = findLifecycleMethod(implType, OnDispose.class, node);
+
+        mark = context.lap(implType, BuildReport.Phase.REFLECTION, mark);
+
+        if (initializer != null || disposer != null)
+        {
+            node.hooks = new LifecycleHooks(
+                initializer == null ? null : MethodInjector.from(initializer),
+                disposer == null ? null : MethodInjector.from(disposer)
             );
         }
 
-        if (searchStackData.isVisited)
+        final ConstructorInjector ctorInjector = ConstructorInjector.from(constructor)
+            .withConstants(bindableArguments(ctorConfig));
+        node.ctorInjector = ctorInjector;
+
+        for (Field field : fields)
         {
-            return;
+            // Absent optional fields keep their initial value.
+            if (absentFields.contains(field))
+            {
+                continue;
+            }
+
+            final FieldInjector fieldInjector = FieldInjector.from(field);
+
+            if (!fieldConfig.containsKey(field))
+            {
+                node.fieldInjectorList.add(fieldInjector);
+                node.serviceFields.add(fieldInjector);
+            }
+            else if (fieldConfig.get(field) != FAILED_VALUE)
+            {
+                node.fieldInjectorList.add(fieldInjector.withConstant(fieldConfig.get(field)));
+            }
+        }
+
+        int methodIndex = 0;
+        for (Method method : methods)
+        {
+            node.methodInjectorList.add(
+                MethodInjector.from(method).withConstants(bindableArguments(methodConfig.get(methodIndex++)))
+            );
+        }
+
+        context.lap(implType, BuildReport.Phase.HANDLE_CREATION, mark);
+
+        node.constructor = constructor;
+        node.ctorArguments = ctorConfig;
+        node.methodArguments.addAll(methodConfig);
+    }
+
+    /**
+     * Adds the edges of a reflected node, creating the nodes of dependencies
+     * that weren't known yet.
+     */
+    private void linkNode(MappingNode node, MappingContext context)
+    {
+        final Class<?> implType = node.descriptor.getImplementationType();
+        final long mark = context.startTiming();
+
+        addParameterEdges(
+            node,
+            Objects.requireNonNull(node.constructor),
+            node.ctorArguments,
+            Objects.requireNonNull(node.ctorInjector),
+            context
+        );
+
+        for (FieldInjector fieldInjector : node.serviceFields)
+        {
+            addEdge(node, fieldInjector.getExpectedType(), fieldInjector, context);
+        }
+
+        for (int i = 0; i < node.methodInjectorList.size(); i++)
+        {
+            final MethodInjector methodInjector = node.methodInjectorList.get(i);
+            addParameterEdges(node, methodInjector.getMember(), node.methodArguments.get(i), methodInjector, context);
+        }
+
+        context.lap(implType, BuildReport.Phase.VALIDATION, mark);
+    }
+
+    /**
+     * Finds the single method annotated with a lifecycle annotation, declared
+     * by the type or by its closest superclass declaring one. Hooks take no
+     * parameters, and initializers return nothing or a
+     * {@link java.util.concurrent.CompletionStage}.
+     */
+    private @Nullable Method findLifecycleMethod(
+        Class<?> implType,
+        Class<? extends Annotation> annotation,
+        MappingNode node
+    )
+    {
+        @Nullable Method output = null;
+        @Nullable Class<?> type = implType;
+
+        while (output == null && type != null && type != Object.class)
+        {
+            output = findDeclaredLifecycleMethod(type, annotation, node);
+            type = type.getSuperclass();
         }
 
-        searchStackData.isVisited = true;
-        context.searchStack.add(searchStackData);
+        return output;
+    }
 
-        for (Class<?> type : ctorInjector.getExpectedTypes())
+    private @Nullable Method findDeclaredLifecycleMethod(
+        Class<?> type,
+        Class<? extends Annotation> annotation,
+        MappingNode node
+    )
+    {
+        @Nullable Method output = null;
+
+        for (Method method : type.getDeclaredMethods())
         {
-            final @Nullable ServiceDescriptor typeDescriptor = context.descriptorMap.get(type);
+            if (!method.isAnnotationPresent(annotation))
+            {
+                continue;
+            }
 
-            if (typeDescriptor == null)
+            final boolean isValidReturn = annotation != OnInitialize.class ||
+                method.getReturnType() == void.class ||
+                CompletionStage.class.isAssignableFrom(method.getReturnType());
+
+            if (output != null || Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0 ||
+                !isValidReturn || !isMemberAccessible(method))
             {
-                throw new NoSuchServiceException(type);
+                node.problems.add(new UnconstructableException(
+                    String.format(
+                        "%s.%s isn't a valid @%s hook. Each type may declare one accessible, non-static hook " +
+                            "without parameters, and initializers must return void or a CompletionStage.",
+                        type.getName(),
+                        method.getName(),
+                        annotation.getSimpleName()
+                    ),
+                    UnconstructableException.FailureType.INVALID_LIFECYCLE_HOOK
+                ));
+                continue;
             }
 
-            search(typeDescriptor, context);
+            output = method;
         }
 
-        for (Field field : findInjectorFields(implType))
+        return output;
+    }
+
+    /**
+     * Finds the arguments bound when mapping: the converted value of every
+     * {@code @Config} parameter and null for every optional parameter whose
+     * service isn't registered. A {@code @Config} on the executable itself
+     * applies to its single parameter.
+     */
+    private Map<Integer, Object> findBoundArguments(
+        Executable executable,
+        @Nullable Config executableConfig,
+        MappingNode node,
+        MappingContext context
+    )
+    {
+        final Parameter[] parameters = executable.getParameters();
+        final Map<Integer, Object> output = new HashMap<>();
+
+        if (executableConfig != null && parameters.length != 1)
         {
-            final Class<?> fieldType = field.getType();
-            final @Nullable ServiceDescriptor typeDescriptor = context.descriptorMap.get(fieldType);
-            final FieldInjector fieldInjector = FieldInjector.from(field);
-            searchStackData.addFieldInjector(fieldInjector);
+            node.problems.add(new ConfigurationException(
+                executableConfig.value(),
+                String.format(
+                    "%s must have exactly one parameter to inject configuration key '%s'.",
+                    executable,
+                    executableConfig.value()
+                )
+            ));
+            return output;
+        }
+
+        final boolean isExecutableOptional = hasOptionalAnnotation(executable);
+
+        for (int i = 0; i < parameters.length; i++)
+        {
+            final @Nullable Config config = executableConfig != null ?
+                executableConfig :
+                parameters[i].getAnnotation(Config.class);
 
-            if (typeDescriptor == null)
+            if (config != null)
+            {
+                output.put(i, convertConfig(config.value(), parameters[i].getType(), node, context));
+            }
+            else if ((isExecutableOptional || hasOptionalAnnotation(parameters[i])) &&
+                isAbsentOptional(parameters[i].getType(), context))
             {
-                throw new NoSuchServiceException(fieldType);
+                output.put(i, null);
             }
+        }
+
+        return output;
+    }
+
+    private static boolean isAbsentOptional(Class<?> type, MappingContext context)
+    {
+        return !type.isPrimitive() && !context.descriptorMap.containsKey(type);
+    }
 
-            search(typeDescriptor, context);
+    private static Object convertConfig(String key, Class<?> type, MappingNode node, MappingContext context)
+    {
+        try
+        {
+            return context.configConverter.convert(key, type);
+        }
+        catch (ConfigurationException err)
+        {
+            node.problems.add(err);
+            return FAILED_VALUE;
         }
+    }
 
-        for (Method method : findInjectorMethods(implType))
+    /**
+     * Returns the arguments that can be bound, or none when a conversion failed
+     * since the mapping is rejected anyway.
+     */
+    private static Map<Integer, Object> bindableArguments(Map<Integer, Object> configArguments)
+    {
+        return configArguments.containsValue(FAILED_VALUE) ? Map.of() : configArguments;
+    }
+
+    private static void addParameterEdges(
+        MappingNode node,
+        Executable executable,
+        Map<Integer, Object> configArguments,
+        AbstractDependencyInjector<?> injector,
+        MappingContext context
+    )
+    {
+        final Class<?>[] parameterTypes = executable.getParameterTypes();
+
+        for (int i = 0; i < parameterTypes.length; i++)
         {
-            if (Modifier.isStatic(method.getModifiers()))
+            if (!configArguments.containsKey(i))
             {
-                throw new AssertionError("Mapper shouldn't handle static method.");
+                addEdge(node, parameterTypes[i], injector, context);
+            }
+        }
+    }
+
+    private static void addEdge(
+        MappingNode node,
+        Class<?> type,
+        AbstractDependencyInjector<?> injector,
+        MappingContext context
+    )
+    {
+        final @Nullable ServiceDescriptor typeDescriptor = findDependencyDescriptor(node, type, context);
+
+        if (typeDescriptor == null)
+        {
+            if (context.missingTypes.add(type))
+            {
+                context.problems.add(new NoSuchServiceException(type));
+            }
+
+            return;
+        }
+
+        node.dependencyDescriptors.add(typeDescriptor);
+        node.dependencyInjectors.add(injector);
+
+        final @Nullable MappingNode target = context.getOrCreateNode(typeDescriptor);
+
+        // Published services were validated together with their whole subgraph.
+        if (target != null)
+        {
+            node.addEdge(target, injector);
+
+            if (typeDescriptor == node.descriptor.getDecoratedDescriptor())
+            {
+                node.decoratedNode = target;
+            }
+        }
+    }
+
+    /**
+     * Finds the descriptor a dependency of a node resolves to. A decorator
+     * depending on the type it decorates receives the service it wraps.
+     */
+    private static @Nullable ServiceDescriptor findDependencyDescriptor(
+        MappingNode node,
+        Class<?> type,
+        MappingContext context
+    )
+    {
+        if (type == node.descriptor.getDecoratedType())
+        {
+            return node.descriptor.getDecoratedDescriptor();
+        }
+
+        return context.descriptorMap.get(type);
+    }
+
+    /**
+     * Finds every strongly connected component of the dependency graph with an
+     * iterative Tarjan pass and reports each one that contains a cycle. Returns
+     * the node indexes in the order their components completed, which puts
+     * dependencies before their dependents on an acyclic graph.
+     */
+    private static int[] findCycles(List<MappingNode> nodes, List<DependencyException> problems)
+    {
+        final int nodeCount = nodes.size();
+        final int[] order = new int[nodeCount];
+        final int[] lowLink = new int[nodeCount];
+        final int[] component = new int[nodeCount];
+        final boolean[] onStack = new boolean[nodeCount];
+        final int[] componentStack = new int[nodeCount];
+        final int[] callStack = new int[nodeCount];
+        final int[] edgePosition = new int[nodeCount];
+        int componentTop = 0;
+        int callTop = 0;
+        int counter = 0;
+        int componentCount = 0;
+        final int[] completionOrder = new int[nodeCount];
+        int completed = 0;
+
+        Arrays.fill(order, -1);
+
+        for (int root = 0; root < nodeCount; root++)
+        {
+            if (order[root] != -1)
+            {
+                continue;
+            }
+
+            order[root] = lowLink[root] = counter++;
+            componentStack[componentTop++] = root;
+            onStack[root] = true;
+            callStack[callTop++] = root;
+
+            while (callTop > 0)
+            {
+                final int current = callStack[callTop - 1];
+                final List<MappingNode> targets = nodes.get(current).edgeTargets;
+
+                if (edgePosition[current] < targets.size())
+                {
+                    final int next = targets.get(edgePosition[current]++).index;
+
+                    if (order[next] == -1)
+                    {
+                        order[next] = lowLink[next] = counter++;
+                        componentStack[componentTop++] = next;
+                        onStack[next] = true;
+                        callStack[callTop++] = next;
+                    }
+                    else if (onStack[next])
+                    {
+                        lowLink[current] = Math.min(lowLink[current], order[next]);
+                    }
+
+                    continue;
+                }
+
+                callTop--;
+
+                if (callTop > 0)
+                {
+                    final int parent = callStack[callTop - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[current]);
+                }
+
+                if (lowLink[current] != order[current])
+                {
+                    continue;
+                }
+
+                final int componentId = componentCount++;
+                int size = 0;
+                int member;
+
+                do
+                {
+                    member = componentStack[--componentTop];
+                    onStack[member] = false;
+                    component[member] = componentId;
+                    completionOrder[completed++] = member;
+                    size++;
+                }
+                while (member != current);
+
+                final MappingNode head = nodes.get(current);
+
+                if (size > 1 || head.edgeTargets.contains(head))
+                {
+                    problems.add(createCycleException(head, nodes, component));
+                }
+            }
+        }
+
+        return completionOrder;
+    }
+
+    /**
+     * Computes the effective lifetime and resolution plan of every node,
+     * dependencies first, and reports services capturing a dependency that lives
+     * shorter than themselves.
+     */
+    private static void analyzeLifetimes(int[] completionOrder, MappingContext context)
+    {
+        for (int index : completionOrder)
+        {
+            final MappingNode node = context.nodes.get(index);
+            final LifetimeType lifetime = node.descriptor.getLifetimeType();
+
+            for (int i = 0; i < node.dependencyDescriptors.size(); i++)
+            {
+                final ServiceDescriptor dependency = node.dependencyDescriptors.get(i);
+                final LifetimeType effective = getEffectiveLifetime(dependency, context);
+
+                // Transient services are rebuilt for each consumer, so the narrowest
+                // lifetime they depend on applies to whoever holds them.
+                if (lifetime == LifetimeType.TRANSIENT)
+                {
+                    if (narrowness(effective) > narrowness(node.effectiveLifetime))
+                    {
+                        node.effectiveLifetime = effective;
+                    }
+
+                    continue;
+                }
+
+                final AbstractDependencyInjector<?> injector = node.dependencyInjectors.get(i);
+
+                if (isCaptive(lifetime, effective))
+                {
+                    context.problems.add(new CaptiveDependencyException(
+                        String.format(
+                            "Captive dependency: %s service %s depends on %s through %s, which requires a %s lifetime.",
+                            lifetime,
+                            node.descriptor.getImplementationType().getName(),
+                            dependency.getImplementationType().getName(),
+                            injector,
+                            effective
+                        ),
+                        node.descriptor,
+                        dependency,
+                        injector
+                    ));
+                }
+                // A decorator holding on to the transient service it wraps is the point.
+                else if (dependency != node.descriptor.getDecoratedDescriptor() &&
+                    (lifetime == LifetimeType.SINGLETON && dependency.getLifetimeType() == LifetimeType.TRANSIENT ||
+                        effective == LifetimeType.CACHED && lifetime != LifetimeType.CACHED))
+                {
+                    LOGGER.log(
+                        System.Logger.Level.WARNING,
+                        "{0} service {1} holds on to {2} service {3} through {4}.",
+                        lifetime,
+                        node.descriptor.getImplementationType().getName(),
+                        dependency.getLifetimeType(),
+                        dependency.getImplementationType().getName(),
+                        injector
+                    );
+                }
             }
 
-            final Class<?>[] methodTypeParameters = method.getParameterTypes();
-            final MethodInjector methodInjector = MethodInjector.from(method);
-            searchStackData.addMethodInjector(methodInjector);
+            node.plan = createPlan(node, context);
+        }
+    }
+
+    private static LifetimeType getEffectiveLifetime(ServiceDescriptor descriptor, MappingContext context)
+    {
+        final @Nullable MappingNode node = context.nodeMap.get(descriptor);
+
+        if (node != null)
+        {
+            return node.effectiveLifetime;
+        }
+
+        // Published by an earlier lazy mapping.
+        final @Nullable DependencyRecord record = context.published == null ?
+            null :
+            context.published.getRecord(context.typesByDescriptor.get(descriptor).get(0));
+
+        return record != null && record.plan() != null ?
+            record.plan().effectiveLifetime() :
+            descriptor.getLifetimeType();
+    }
+
+    /**
+     * Orders lifetimes by how narrowly their instances are shared. A transient
+     * service is stored nowhere and so is the least narrow.
+     */
+    private static int narrowness(LifetimeType lifetime)
+    {
+        return switch (lifetime)
+        {
+            case TRANSIENT -> 0;
+            case SINGLETON -> 1;
+            case CACHED -> 2;
+            case THREAD -> 3;
+            case SCOPED -> 4;
+        };
+    }
+
+    private static boolean isCaptive(LifetimeType consumer, LifetimeType dependency)
+    {
+        return switch (consumer)
+        {
+            case SINGLETON, CACHED -> dependency == LifetimeType.SCOPED || dependency == LifetimeType.THREAD;
+            case THREAD -> dependency == LifetimeType.SCOPED;
+            case SCOPED, TRANSIENT -> false;
+        };
+    }
+
+    private static ResolutionPlan createPlan(MappingNode node, MappingContext context)
+    {
+        final List<ResolutionPlan.Dependency> fieldDependencies = new ArrayList<>();
+
+        for (FieldInjector injector : node.fieldInjectorList)
+        {
+            fieldDependencies.add(injector.isConstant() ?
+                new ResolutionPlan.Dependency(injector.getExpectedType(), ResolutionPlan.Resolution.CONSTANT) :
+                createPlanDependency(node, injector.getExpectedType(), context));
+        }
+
+        final List<List<ResolutionPlan.Dependency>> methodDependencies = new ArrayList<>();
 
-            for (Class<?> paramType : methodTypeParameters)
+        for (MethodInjector injector : node.methodInjectorList)
+        {
+            methodDependencies.add(createPlanDependencies(node, injector.getExpectedTypes(), context));
+        }
+
+        return new ResolutionPlan(
+            node.effectiveLifetime,
+            createPlanDependencies(node, Objects.requireNonNull(node.ctorInjector).getExpectedTypes(), context),
+            List.copyOf(fieldDependencies),
+            List.copyOf(methodDependencies)
+        );
+    }
+
+    private static List<ResolutionPlan.Dependency> createPlanDependencies(
+        MappingNode node,
+        List<Class<?>> types,
+        MappingContext context
+    )
+    {
+        final List<ResolutionPlan.Dependency> output = new ArrayList<>(types.size());
+
+        for (Class<?> type : types)
+        {
+            output.add(createPlanDependency(node, type, context));
+        }
+
+        return List.copyOf(output);
+    }
+
+    private static ResolutionPlan.Dependency createPlanDependency(
+        MappingNode node,
+        Class<?> type,
+        MappingContext context
+    )
+    {
+        final ServiceDescriptor descriptor = Objects.requireNonNull(findDependencyDescriptor(node, type, context));
+        return new ResolutionPlan.Dependency(type, ResolutionPlan.Resolution.of(descriptor.getLifetimeType()));
+    }
+
+    /**
+     * Walks the shortest cycle through the head of a strongly connected component
+     * and builds the exception describing it.
+     */
+    private static CircularDependencyException createCycleException(
+        MappingNode head,
+        List<MappingNode> nodes,
+        int[] component
+    )
+    {
+        final int componentId = component[head.index];
+        final int[] parentNode = new int[nodes.size()];
+        final int[] parentEdge = new int[nodes.size()];
+        final ArrayDeque<MappingNode> queue = new ArrayDeque<>();
+        int lastNode = -1;
+        int lastEdge = -1;
+
+        Arrays.fill(parentNode, -1);
+        queue.add(head);
+
+        search:
+        while (!queue.isEmpty())
+        {
+            final MappingNode current = queue.poll();
+
+            for (int i = 0; i < current.edgeTargets.size(); i++)
             {
-                final @Nullable ServiceDescriptor typeDescriptor = context.descriptorMap.get(paramType);
+                final MappingNode target = current.edgeTargets.get(i);
 
-                if (typeDescriptor == null)
+                if (target == head)
                 {
-                    throw new NoSuchServiceException(paramType);
+                    lastNode = current.index;
+                    lastEdge = i;
+                    break search;
                 }
 
-                search(typeDescriptor, context);
+                if (component[target.index] == componentId && parentNode[target.index] == -1)
+                {
+                    parentNode[target.index] = current.index;
+                    parentEdge[target.index] = i;
+                    queue.add(target);
+                }
             }
         }
 
-        context.searchStack.pop();
+        final List<AbstractDependencyInjector<?>> trace = new ArrayList<>();
+        for (int at = lastNode, edge = lastEdge; ; edge = parentEdge[at], at = parentNode[at])
+        {
+            trace.add(nodes.get(at).edgeInjectors.get(edge));
+
+            if (at == head.index)
+            {
+                break;
+            }
+        }
+
+        Collections.reverse(trace);
+
+        final String path = trace.stream()
+            .map(Object::toString)
+            .collect(Collectors.joining(" -> "));
+
+        return new CircularDependencyException(
+            "Circular dependency occurred when mapping configuration: " + path,
+            head.descriptor,
+            trace
+        );
     }
 
     @SuppressWarnings("unchecked")
     protected <T> Constructor<T> findInjectorOrDefaultConstructor(Class<T> type)
     {
+        if (type.isRecord())
+        {
+            return findCanonicalConstructor(type);
+        }
+
         var constructors = type.getDeclaredConstructors();
         var injectorConstructorOpt = Arrays.stream(constructors)
             .filter(this::filterConstructor)
@@ -213,6 +1152,32 @@ public class DefaultDependencyMapper implements IDependencyMapper
         return (Constructor<T>) injectorConstructorOpt.get();
     }
 
+    protected <T> Constructor<T> findCanonicalConstructor(Class<T> type)
+    {
+        final Class<?>[] componentTypes = Arrays.stream(type.getRecordComponents())
+            .map(RecordComponent::getType)
+            .toArray(Class<?>[]::new);
+
+        final Constructor<T> constructor;
+        try
+        {
+            constructor = type.getDeclaredConstructor(componentTypes);
+        }
+        catch (NoSuchMethodException err)
+        {
+            throw new UnconstructableException(type, UnconstructableException.FailureType.NO_CONSTRUCTOR);
+        }
+
+        // The canonical constructor shares the access of its record, so only
+        // public or, when allowed, non-public records can be constructed.
+        if (!Modifier.isPublic(constructor.getModifiers()) && !isAbleToResolvePrivate)
+        {
+            throw new UnconstructableException(type, UnconstructableException.FailureType.NO_VALID_CONSTRUCTOR);
+        }
+
+        return constructor;
+    }
+
     protected Collection<Method> findInjectorMethods(Class<?> type)
     {
         return Arrays.stream(type.getDeclaredMethods())
@@ -255,14 +1220,49 @@ public class DefaultDependencyMapper implements IDependencyMapper
         int mods = field.getModifiers();
         boolean isFinal = Modifier.isFinal(mods);
         boolean hasInjectionAnnotation = Arrays.stream(field.getDeclaredAnnotations())
-            .anyMatch(this::isInjectionAnnotation);
+            .anyMatch(this::isInjectionAnnotation) ||
+            field.isAnnotationPresent(Config.class) ||
+            hasOptionalAnnotation(field);
 
         return !isFinal && hasInjectionAnnotation;
     }
 
     protected boolean filterMethod(Method method)
     {
-        return isMemberAccessible(method);
+        if (!isMemberAccessible(method))
+        {
+            return false;
+        }
+
+        // Like fields, only annotated methods are injected, so that methods such
+        // as close() or the ones implementing a service interface aren't called
+        // while constructing.
+        boolean hasInjectionAnnotation = Arrays.stream(method.getDeclaredAnnotations())
+            .anyMatch(this::isInjectionAnnotation) ||
+            method.isAnnotationPresent(Config.class) ||
+            hasOptionalAnnotation(method) ||
+            Arrays.stream(method.getParameters()).anyMatch(it -> it.isAnnotationPresent(Config.class));
+
+        // Lifecycle hooks are called by the provider, not injected.
+        boolean isLifecycleHook = method.isAnnotationPresent(OnInitialize.class) ||
+            method.isAnnotationPresent(OnDispose.class);
+
+        return hasInjectionAnnotation && !isLifecycleHook;
+    }
+
+    protected boolean hasOptionalAnnotation(AnnotatedElement element)
+    {
+        return Arrays.stream(element.getAnnotations()).anyMatch(this::isOptionalAnnotation);
+    }
+
+    /**
+     * Checks whether an annotation marks an optional injection point. Only
+     * {@code @Optional} does by default; override to accept other annotation
+     * types, such as a runtime-retained {@code @Nullable}.
+     */
+    protected boolean isOptionalAnnotation(Annotation klass)
+    {
+        return klass.annotationType().equals(io.krazy.dependency.api.annotation.Optional.class);
     }
 
     protected boolean isInjectionAnnotation(Annotation klass)
@@ -6,19 +6,43 @@ import io.krazy.dependency.api.exception.CircularDependencyException;
 import io.krazy.dependency.api.exception.NoSuchServiceException;
 import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultServiceConfigurator implements IServiceConfigurator
 {
-    private final Map<Class<?>, ServiceDescriptor> descriptorMapping = new HashMap<>();
+    // Concurrent so that lookups and parallel mapping don't lock. Descriptors are only
+    // changed while holding the configurator's lock, so that aliases and decorators
+    // registered by concurrent modules see each other.
+    private final Map<Class<?>, ServiceDescriptor> descriptorMapping = new ConcurrentHashMap<>();
+    private final Map<Class<?>, IServiceModule> moduleMapping = new ConcurrentHashMap<>();
+    private final Map<String, String> configurationMapping = new ConcurrentHashMap<>();
+    private final Map<String, WarmUpGroup> warmUpMapping = new ConcurrentHashMap<>();
 
     @Getter(AccessLevel.PROTECTED)
     private final IDependencyMapper dependencyMapper;
 
+    @Getter @Setter
+    private ProviderOptions providerOptions = ProviderOptions.defaults();
+
+    /**
+     * Whether services are mapped and validated on first request instead of when
+     * the provider is built.
+     */
+    @Getter @Setter
+    private boolean lazyMapping;
+
+    @Getter(onMethod_ = @Override)
+    private @Nullable BuildReport lastBuildReport;
+
     public DefaultServiceConfigurator()
     {
         this.dependencyMapper = new DefaultDependencyMapper(true, this);
@@ -34,38 +58,257 @@ public class DefaultServiceConfigurator implements IServiceConfigurator
         this.dependencyMapper = dependencyMapper;
     }
 
+    /**
+     * Registers the services of a module using a registry bound to it. This
+     * method can be called from many threads at once. If the module fails, the
+     * registrations it already made are rolled back.
+     *
+     * @param module the module to register
+     */
     @Override
-    public void addDescriptor(Class<?> mappingType, ServiceDescriptor descriptor)
+    public void addModule(IServiceModule module)
     {
-        if(descriptorMapping.containsKey(mappingType))
+        final ModuleRegistry registry = new ModuleRegistry(module, new ArrayList<>());
+
+        try
         {
-            throw new AmbiguousRegisterException(mappingType, descriptor.getImplementationType());
+            module.configure(registry);
+        }
+        catch (RuntimeException | Error err)
+        {
+            registry.rollback();
+            throw err;
         }
+    }
 
-        synchronized (descriptorMapping)
+    @Override
+    public @Nullable IServiceModule getModule(Class<?> mappingType)
+    {
+        return moduleMapping.get(mappingType);
+    }
+
+    @Override
+    public synchronized void addDescriptor(Class<?> mappingType, ServiceDescriptor descriptor)
+    {
+        if (descriptorMapping.putIfAbsent(mappingType, descriptor) != null)
         {
-            descriptorMapping.put(mappingType, descriptor);
+            throw new AmbiguousRegisterException(mappingType, descriptor.getImplementationType());
         }
     }
 
+    /**
+     * Registers an alias atomically, so a concurrent decorator of the target
+     * either decorates the alias too or runs after it.
+     */
+    @Override
+    public synchronized void addAlias(Class<?> aliasType, Class<?> targetType)
+    {
+        IServiceConfigurator.super.addAlias(aliasType, targetType);
+    }
+
     @Override
     public Map<Class<?>, ServiceDescriptor> getDescriptorMap()
     {
         return Collections.unmodifiableMap(descriptorMapping);
     }
 
+    /**
+     * Wraps a registered service with a decorator. Serialized with other
+     * registrations, so concurrent modules can decorate the same service.
+     */
+    @Override
+    public <T> void decorate(Class<T> serviceType, Class<? extends T> decoratorType)
+    {
+        decorateService(serviceType, decoratorType);
+    }
+
+    /**
+     * Decorates a service and returns the action restoring the previous
+     * descriptors.
+     */
+    private synchronized <T> Runnable decorateService(Class<T> serviceType, Class<? extends T> decoratorType)
+    {
+        final @Nullable ServiceDescriptor descriptor = descriptorMapping.get(serviceType);
+
+        if (descriptor == null)
+        {
+            throw new NoSuchServiceException(serviceType);
+        }
+
+        final ServiceDescriptor decorator = ServiceDescriptor.forDecorator(serviceType, descriptor, decoratorType);
+        final List<Class<?>> types = new ArrayList<>();
+
+        // Aliases share the descriptor, so they are decorated as well.
+        for (var entry : descriptorMapping.entrySet())
+        {
+            if (entry.getValue() != descriptor)
+            {
+                continue;
+            }
+
+            if (!entry.getKey().isAssignableFrom(decoratorType))
+            {
+                throw new IllegalArgumentException(String.format(
+                    "%s cannot decorate %s because it doesn't implement its alias %s.",
+                    decoratorType.getName(),
+                    serviceType.getName(),
+                    entry.getKey().getName()
+                ));
+            }
+
+            types.add(entry.getKey());
+        }
+
+        for (Class<?> type : types)
+        {
+            replaceDescriptor(type, descriptor, decorator);
+        }
+
+        return () ->
+        {
+            synchronized (this)
+            {
+                for (Class<?> type : types)
+                {
+                    replaceDescriptor(type, decorator, descriptor);
+                }
+            }
+        };
+    }
+
+    /**
+     * Replaces or removes the descriptor of a type if it is still the expected
+     * one. Like the alias scan, it compares by identity, since distinct
+     * registrations may have equal descriptors. Must hold the configurator's lock.
+     */
+    private void replaceDescriptor(
+        Class<?> mappingType,
+        ServiceDescriptor expected,
+        @Nullable ServiceDescriptor replacement
+    )
+    {
+        if (descriptorMapping.get(mappingType) != expected)
+        {
+            return;
+        }
+
+        if (replacement == null)
+        {
+            descriptorMapping.remove(mappingType);
+        }
+        else
+        {
+            descriptorMapping.put(mappingType, replacement);
+        }
+    }
+
     @Override
     public boolean hasDescriptor(Class<?> mappingType)
     {
         return descriptorMapping.containsKey(mappingType);
     }
 
+    @Override
+    public Map<String, String> getConfigurationMap()
+    {
+        return Collections.unmodifiableMap(configurationMapping);
+    }
+
+    /**
+     * Adds configuration values, replacing values already set for the same keys.
+     *
+     * @param configuration the configuration keys and their raw values
+     */
+    public void addConfiguration(Map<String, String> configuration)
+    {
+        configurationMapping.putAll(configuration);
+    }
+
+    /**
+     * Adds configuration values from properties, including their defaults,
+     * replacing values already set for the same keys.
+     *
+     * @param properties the properties to read
+     */
+    public void addConfiguration(Properties properties)
+    {
+        for (String key : properties.stringPropertyNames())
+        {
+            configurationMapping.put(key, properties.getProperty(key));
+        }
+    }
+
+    /**
+     * Adds singletons to a warm-up group. Once a provider is built, the groups
+     * are constructed in the background on virtual threads, higher priorities
+     * first, while the provider already serves requests.
+     *
+     * @param group        the name of the group
+     * @param priority     the priority of the group, higher runs first
+     * @param serviceTypes the types of the singletons to construct
+     * @throws IllegalArgumentException if the group already exists with another
+     *                                  priority
+     */
+    public void addWarmUp(String group, int priority, Class<?>... serviceTypes)
+    {
+        warmUpMapping.merge(group, new WarmUpGroup(group, priority, List.of(serviceTypes)), (existing, added) ->
+        {
+            if (existing.priority() != priority)
+            {
+                throw new IllegalArgumentException(String.format(
+                    "Warm-up group '%s' already has priority %d.",
+                    group,
+                    existing.priority()
+                ));
+            }
+
+            final List<Class<?>> types = new ArrayList<>(existing.serviceTypes());
+            types.addAll(added.serviceTypes());
+            return new WarmUpGroup(group, priority, types);
+        });
+    }
+
     @Override
     public IServiceProvider buildProvider()
         throws IllegalAccessException, NoSuchServiceException, CircularDependencyException
     {
-        MappingResult mappingResult = dependencyMapper.computeMapping();
-        return new DefaultServiceProvider(mappingResult);
+        final BuildReport.Recorder recorder = new BuildReport.Recorder();
+        final IServiceProvider provider = compileTemplate(recorder).createProvider();
+
+        lastBuildReport = recorder.toReport();
+        return provider;
+    }
+
+    /**
+     * Maps the registered services into a template that creates any number of
+     * isolated providers without mapping again.
+     *
+     * @return the compiled provider template
+     * @throws IllegalAccessException      if there's an issue accessing
+     *                                     constructors or members
+     * @throws NoSuchServiceException      if a required dependency is not
+     *                                     registered
+     * @throws CircularDependencyException if a circular dependency is detected
+     */
+    public ProviderTemplate compileTemplate()
+        throws IllegalAccessException, NoSuchServiceException, CircularDependencyException
+    {
+        return compileTemplate(new BuildReport.Recorder());
+    }
+
+    private ProviderTemplate compileTemplate(BuildReport.Recorder recorder)
+        throws IllegalAccessException, NoSuchServiceException, CircularDependencyException
+    {
+        if (lazyMapping)
+        {
+            recorder.markLazy();
+        }
+
+        final MappingResult mappingResult = lazyMapping ?
+            dependencyMapper.computeLazyMapping() :
+            dependencyMapper.computeMapping(recorder);
+
+        return new ProviderTemplate(mappingResult, providerOptions, List.copyOf(warmUpMapping.values()));
     }
 
     @VisibleForTesting
@@ -73,4 +316,81 @@ public class DefaultServiceConfigurator implements IServiceConfigurator
     {
         return descriptorMapping;
     }
+
+    /**
+     * Registers the services of a single module into the owning configurator,
+     * remembering how to undo each registration.
+     */
+    private final class ModuleRegistry implements IServiceRegistry
+    {
+        private final IServiceModule module;
+        // Shared with nested modules, so they are rolled back with their parent.
+        private final List<Runnable> undoActions;
+
+        private ModuleRegistry(IServiceModule module, List<Runnable> undoActions)
+        {
+            this.module = module;
+            this.undoActions = undoActions;
+        }
+
+        @Override
+        public void addDescriptor(Class<?> mappingType, ServiceDescriptor descriptor)
+        {
+            synchronized (DefaultServiceConfigurator.this)
+            {
+                DefaultServiceConfigurator.this.addDescriptor(mappingType, descriptor);
+                moduleMapping.put(mappingType, module);
+            }
+
+            undoActions.add(() ->
+            {
+                synchronized (DefaultServiceConfigurator.this)
+                {
+                    replaceDescriptor(mappingType, descriptor, null);
+                    moduleMapping.remove(mappingType, module);
+                }
+            });
+        }
+
+        @Override
+        public void addAlias(Class<?> aliasType, Class<?> targetType)
+        {
+            synchronized (DefaultServiceConfigurator.this)
+            {
+                IServiceRegistry.super.addAlias(aliasType, targetType);
+            }
+        }
+
+        @Override
+        public void addModule(IServiceModule module)
+        {
+            module.configure(new ModuleRegistry(module, undoActions));
+        }
+
+        @Override
+        public <T> void decorate(Class<T> serviceType, Class<? extends T> decoratorType)
+        {
+            undoActions.add(decorateService(serviceType, decoratorType));
+        }
+
+        @Override
+        public Map<Class<?>, ServiceDescriptor> getDescriptorMap()
+        {
+            return DefaultServiceConfigurator.this.getDescriptorMap();
+        }
+
+        @Override
+        public boolean hasDescriptor(Class<?> mappingType)
+        {
+            return DefaultServiceConfigurator.this.hasDescriptor(mappingType);
+        }
+
+        private void rollback()
+        {
+            for (int i = undoActions.size() - 1; i >= 0; i--)
+            {
+                undoActions.get(i).run();
+            }
+        }
+    }
 }
@@ -2,17 +2,46 @@ package io.krazy.dependency.impl;
 
 import io.krazy.dependency.api.*;
 import io.krazy.dependency.api.exception.NoSuchServiceException;
+import io.krazy.dependency.api.exception.ResolutionException;
 import io.krazy.dependency.api.injector.ConstructorInjector;
 import io.krazy.dependency.api.injector.FieldInjector;
 import io.krazy.dependency.api.injector.MethodInjector;
 import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.Setter;
 import org.jetbrains.annotations.Nullable;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -20,273 +49,2218 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class DefaultServiceProvider implements IServiceProvider
 {
+    private static final System.Logger LOGGER = System.getLogger(DefaultServiceProvider.class.getName());
+    private static final AtomicLong PROVIDER_IDS = new AtomicLong();
+
+    @Getter
+    private final ProviderTemplate template;
+
     @Getter
     private final MappingResult mappingResult;
 
     @Getter(AccessLevel.PROTECTED)
     private final ScopeManager scopeManager;
 
-    protected static class ServiceHolder
+    @Getter(AccessLevel.PROTECTED)
+    private final ThreadManager threadManager;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final CacheManager cacheManager;
+    private final boolean captureStackTraces;
+
+    private final Map<Class<?>, Binding<?>> bindingMap;
+
+    // Storage slots of services whose binding is created on first request.
+    private final @Nullable Map<Class<?>, Integer> lazySlotMap;
+    // Singletons are owned by the provider and shared by every scope.
+    private final IScopeStorage singletonStorage;
+    // Hooks of every singleton slot, set when its binding is created.
+    private final AtomicReferenceArray<LifecycleHooks> singletonHooks;
+
+    // Scoped services requested from the provider itself.
+    private final IScopeStorage rootStorage;
+    private final @Nullable BlockingQueue<Scope> scopePool;
+
+    /**
+     * The background construction of the template's warm-up groups, or null if
+     * the provider wasn't created by {@link ProviderTemplate#createProvider()} or
+     * the template has no groups.
+     */
+    @Getter
+    private volatile @Nullable WarmUp warmUp;
+
+    // Collected only when monitoring is enabled.
+    @Getter(AccessLevel.PACKAGE)
+    private final @Nullable ProviderStatistics statistics;
+
+    // Failures of closing scopes and the provider, the managers count their own.
+    private final LongAdder disposalFailures = new LongAdder();
+
+    /**
+     * The name of the registered {@link ProviderMonitorMXBean}, or null if the
+     * provider isn't monitored.
+     */
+    @Getter
+    private volatile @Nullable ObjectName monitorName;
+
+    // Initializations returned by @OnInitialize hooks that haven't completed yet.
+    private final Map<InstanceKey, CompletableFuture<?>> initializations = new ConcurrentHashMap<>();
+
+    // Failures of the initializations of stored instances. Keys are weak, so the failure
+    // is dropped with its instance, even if the instance is never disposed of.
+    private final Map<WeakInstanceKey, Throwable> failedInitializations = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> failedInstances = new ReferenceQueue<>();
+
+    /**
+     * Identity key of a service instance, unaffected by its equals and hashCode.
+     */
+    private record InstanceKey(Object instance)
     {
-        @Getter
-        private final Lock lock = new ReentrantLock();
+        @Override
+        public boolean equals(Object obj)
+        {
+            return obj instanceof InstanceKey other && other.instance == instance;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(instance);
+        }
+    }
 
-        @Getter @Setter
-        private volatile @Nullable Object instance;
+    /**
+     * Weak identity key of a service instance. A cleared key only equals itself,
+     * so it can still be removed from the map it was put in.
+     */
+    private static final class WeakInstanceKey extends WeakReference<Object>
+    {
+        private final int hash;
+
+        private WeakInstanceKey(Object instance, @Nullable ReferenceQueue<Object> queue)
+        {
+            super(instance, queue);
+            this.hash = System.identityHashCode(instance);
+        }
 
-        public void lock()
+        @Override
+        public boolean equals(Object obj)
         {
-            lock.lock();
+            if (this == obj)
+            {
+                return true;
+            }
+
+            final @Nullable Object instance = get();
+            return instance != null && obj instanceof WeakInstanceKey other && other.get() == instance;
         }
 
-        public void unlock()
+        @Override
+        public int hashCode()
         {
-            lock.unlock();
+            return hash;
         }
     }
 
-    protected static class SingletonManager
+    /**
+     * Tracks an open scope without keeping it reachable. The state is also the
+     * cleaning action of the scope, so it must never reference the scope itself.
+     */
+    protected static class ScopeState implements Runnable
     {
-        @Getter
-        private final Map<Class<?>, ServiceHolder> singletonMap = new ConcurrentHashMap<>();
+        private final ScopeManager manager;
+        private final IScopeStorage storage;
+        // Only used to force-close stale scopes.
+        private final WeakReference<Scope> scope;
+        private final AtomicBoolean isActive = new AtomicBoolean();
+        private volatile long openedNanos;
+        private @Nullable Cleaner.Cleanable cleanable;
 
-        public ServiceHolder getHolder(Class<?> klass)
+        private ScopeState(ScopeManager manager, IScopeStorage storage, Scope scope)
         {
-            return singletonMap.computeIfAbsent(klass, it -> new ServiceHolder());
+            this.manager = manager;
+            this.storage = storage;
+            this.scope = new WeakReference<>(scope);
         }
 
-        public void close() throws Exception
+        private void open()
+        {
+            openedNanos = System.nanoTime();
+            isActive.set(true);
+            manager.liveScopes.add(this);
+            manager.createdCount.increment();
+        }
+
+        private void deactivate()
         {
-            for (var obj : singletonMap.values())
+            if (isActive.compareAndSet(true, false))
             {
-                obj.lock();
-                if (obj.instance instanceof AutoCloseable closeable)
-                {
-                    closeable.close();
-                }
-                obj.unlock();
+                manager.liveScopes.remove(this);
+                manager.closedCount.increment();
+            }
+        }
+
+        /**
+         * Stops tracking the scope for good, it won't be opened again.
+         */
+        private void unregister()
+        {
+            deactivate();
+            Objects.requireNonNull(cleanable).clean();
+        }
+
+        // Runs on the cleaner thread once the scope is unreachable, or on unregister.
+        @Override
+        public void run()
+        {
+            if (!isActive.compareAndSet(true, false))
+            {
+                return;
+            }
+
+            manager.liveScopes.remove(this);
+            LOGGER.log(
+                System.Logger.Level.WARNING,
+                "Scope opened {0} ms ago became unreachable without being closed, disposing of its services.",
+                Duration.ofNanos(System.nanoTime() - openedNanos).toMillis()
+            );
+
+            try
+            {
+                disposeAll(storage, manager.slotHooks);
+            }
+            catch (Exception err)
+            {
+                manager.disposalFailures.increment();
+                LOGGER.log(System.Logger.Level.WARNING, "Failed to dispose of the services of a leaked scope.", err);
+            }
+            finally
+            {
+                // Counted once disposed, so observers of the counter see the disposal.
+                manager.leakedCount.increment();
             }
         }
     }
 
     protected static class ScopeManager
     {
+        private static final Cleaner CLEANER = Cleaner.create();
+
+        // Storage of requestables that aren't scopes of this provider, until closeScope.
         @Getter
-        private final Map<IServiceRequestable, SingletonManager> scopeMap = new ConcurrentHashMap<>();
+        private final Map<IServiceRequestable, IScopeStorage> scopeMap = new ConcurrentHashMap<>();
+        private final Set<ScopeState> liveScopes = ConcurrentHashMap.newKeySet();
+        private final LongAdder createdCount = new LongAdder();
+        private final LongAdder closedCount = new LongAdder();
+        private final LongAdder leakedCount = new LongAdder();
+        private final LongAdder disposalFailures = new LongAdder();
+        // Hooks of every scoped slot, set when its binding is created.
+        private final AtomicReferenceArray<LifecycleHooks> slotHooks;
+        private final IScopeStorageFactory storageFactory;
+        private final int slotCount;
+
+        public ScopeManager(int slotCount)
+        {
+            this(slotCount, ProviderOptions::createDefaultStorage);
+        }
+
+        public ScopeManager(int slotCount, IScopeStorageFactory storageFactory)
+        {
+            this.slotCount = slotCount;
+            this.slotHooks = new AtomicReferenceArray<>(slotCount);
+            this.storageFactory = storageFactory;
+        }
+
+        public void setHooks(int slot, LifecycleHooks hooks)
+        {
+            slotHooks.set(slot, hooks);
+        }
+
+        public IScopeStorage createStorage(ScopeMode mode)
+        {
+            return storageFactory.create(slotCount, mode);
+        }
+
+        public IScopeStorage getStorage(IServiceRequestable requestable)
+        {
+            return scopeMap.computeIfAbsent(requestable, it -> createStorage(ScopeMode.SHARED));
+        }
+
+        /**
+         * Creates the storage of a scope and starts tracking it. The scope owns the
+         * returned state, and its services are disposed of if it becomes
+         * unreachable while open.
+         */
+        public ScopeState track(Scope scope)
+        {
+            final ScopeState state = new ScopeState(this, createStorage(ScopeMode.SHARED), scope);
+            state.cleanable = CLEANER.register(scope, state);
+            state.open();
+            return state;
+        }
+
+        public ScopeStatistics getStatistics()
+        {
+            final long now = System.nanoTime();
+            final List<Duration> ages = new ArrayList<>(liveScopes.size());
+
+            for (ScopeState state : liveScopes)
+            {
+                ages.add(Duration.ofNanos(now - state.openedNanos));
+            }
+
+            ages.sort(Comparator.reverseOrder());
+            return new ScopeStatistics(createdCount.sum(), closedCount.sum(), leakedCount.sum(), List.copyOf(ages));
+        }
+
+        /**
+         * Counts the instances held by every live scope.
+         */
+        public List<Integer> getInstanceCounts()
+        {
+            final List<Integer> output = new ArrayList<>(liveScopes.size());
+
+            for (ScopeState state : liveScopes)
+            {
+                output.add(state.storage.size());
+            }
+
+            return output;
+        }
+
+        /**
+         * Closes every live scope opened at least the given time ago. For a pooled
+         * scope, only the stale checkout is closed: its lease fails from then on,
+         * and the scope goes back to the pool without its services.
+         *
+         * @return the number of closed scopes
+         */
+        public int closeStale(long olderThanNanos)
+        {
+            final long now = System.nanoTime();
+            int output = 0;
+
+            for (ScopeState state : liveScopes)
+            {
+                final @Nullable Scope scope = state.scope.get();
+
+                if (scope == null)
+                {
+                    continue;
+                }
+
+                // Read before the age, a checkout started since then is left open.
+                final long checkout = scope.generation;
+
+                if (now - state.openedNanos < olderThanNanos)
+                {
+                    continue;
+                }
+
+                try
+                {
+                    scope.close(checkout);
+                    output++;
+                }
+                catch (Exception err)
+                {
+                    // Already counted by the provider when disposing of the scope.
+                    LOGGER.log(System.Logger.Level.WARNING, "Failed to close a stale scope.", err);
+                }
+            }
+
+            return output;
+        }
 
-        public SingletonManager getSingletonHolder(IServiceRequestable requestable)
+        public long getDisposalFailures()
         {
-            return scopeMap.computeIfAbsent(requestable, it -> new SingletonManager());
+            return disposalFailures.sum();
         }
 
         public void close(IServiceRequestable requestable) throws Exception
         {
-            var holder = scopeMap.remove(requestable);
+            final @Nullable IScopeStorage storage = scopeMap.remove(requestable);
 
-            if (holder != null)
+            if (storage != null)
             {
-                holder.close();
+                disposeAll(storage, slotHooks);
             }
         }
     }
 
-    protected static class Scope implements IServiceScope
+    protected static class ThreadManager
     {
-        @Getter
-        private final DefaultServiceProvider serviceProvider;
+        private static final int INITIAL_SWEEP_THRESHOLD = 64;
 
         @Getter
-        private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
-        private volatile boolean isClosed;
+        // Keyed by thread only, so close() releases the slots of every thread at once.
+        private final Map<Thread, Object[]> threadMaps = new ConcurrentHashMap<>();
+        // Hooks of every thread slot, set when its binding is created.
+        private final AtomicReferenceArray<LifecycleHooks> slotHooks;
+        private final LongAdder disposalFailures = new LongAdder();
+        private final int slotCount;
+        private volatile int sweepThreshold = INITIAL_SWEEP_THRESHOLD;
 
-        public Scope(DefaultServiceProvider serviceProvider)
+        public ThreadManager(int slotCount)
         {
-            this.serviceProvider = serviceProvider;
+            this.slotCount = slotCount;
+            this.slotHooks = new AtomicReferenceArray<>(slotCount);
         }
 
-        @Override
-        public boolean isClosed()
+        public void setHooks(int slot, LifecycleHooks hooks)
         {
-            return isClosed;
+            slotHooks.set(slot, hooks);
         }
 
-        @Override
-        public boolean hasService(Class<?> klass)
+        /**
+         * Gets the service slots owned by the calling thread, indexed by the storage
+         * slot of thread bindings. The array is confined to that thread and must not
+         * be shared.
+         */
+        public Object[] getThreadSlots()
         {
-            return serviceProvider.hasService(klass);
+            final Thread thread = Thread.currentThread();
+            final @Nullable Object[] map = threadMaps.get(thread);
+            return map != null ? map : register(thread);
         }
 
-        @Override
-        public <T> T requestService(Class<T> klass)
+        // Only the thread itself registers its slots, so they can't be replaced concurrently.
+        private Object[] register(Thread thread)
         {
-            closeLock.readLock().lock();
-            try
-            {
-                if (isClosed)
-                {
-                    throw new IllegalStateException("Couldn't request service from closed scope.");
-                }
+            final Object[] map = new Object[slotCount];
+            threadMaps.put(thread, map);
 
-                return serviceProvider.requestServiceScoped(this, klass);
+            if (threadMaps.size() >= sweepThreshold)
+            {
+                sweep();
             }
-            finally
+
+            return map;
+        }
+
+        // Disposes of instances owned by threads that have terminated. Threshold
+        // doubling keeps the sweep amortized for short-lived (virtual) threads.
+        private synchronized void sweep()
+        {
+            for (var entry : threadMaps.entrySet())
             {
-                closeLock.readLock().unlock();
+                if (!entry.getKey().isAlive() && threadMaps.remove(entry.getKey(), entry.getValue()))
+                {
+                    try
+                    {
+                        closeAll(entry.getValue());
+                    }
+                    catch (Exception ignored)
+                    {
+                        // Nobody is left to observe the failure of a dead thread's service.
+                        disposalFailures.increment();
+                    }
+                }
             }
+
+            sweepThreshold = Math.max(INITIAL_SWEEP_THRESHOLD, threadMaps.size() * 2);
+        }
+
+        public long getDisposalFailures()
+        {
+            return disposalFailures.sum();
         }
 
-        @Override
         public void close() throws Exception
         {
-            closeLock.writeLock().lock();
-            try
+            @Nullable Exception failure = null;
+
+            for (var thread : threadMaps.keySet())
             {
-                isClosed = true;
-                serviceProvider.closeScope(this);
+                final @Nullable Object[] map = threadMaps.remove(thread);
+
+                if (map == null)
+                {
+                    continue;
+                }
+
+                try
+                {
+                    closeAll(map);
+                }
+                catch (Exception err)
+                {
+                    if (failure == null)
+                    {
+                        failure = err;
+                    }
+                    else
+                    {
+                        failure.addSuppressed(err);
+                    }
+                }
             }
-            finally
+
+            if (failure != null)
             {
-                closeLock.writeLock().unlock();
+                throw failure;
             }
         }
-    }
 
-    public DefaultServiceProvider(MappingResult mappingResult)
-    {
-        this(mappingResult, new ScopeManager());
+        private void closeAll(Object[] map) throws Exception
+        {
+            for (int i = 0; i < map.length; i++)
+            {
+                dispose(map[i], slotHooks.get(i));
+            }
+        }
     }
 
-    protected DefaultServiceProvider(MappingResult mappingResult, ScopeManager scopeManager)
+    protected static class CacheSlot
     {
-        this.mappingResult = mappingResult;
-        this.scopeManager = scopeManager;
-    }
+        private final Lock lock = new ReentrantLock();
 
-    @Override
-    public IServiceScope createScope()
-    {
-        return new Scope(this);
-    }
+        // Either the instance itself or a SoftReference to it.
+        private volatile @Nullable Object value;
+        private volatile long writeNanos;
+        private volatile long accessNanos;
+        private volatile LifecycleHooks hooks = LifecycleHooks.NONE;
 
-    @Override
-    public void closeScope(IServiceScope scope) throws Exception
-    {
-        scopeManager.close(scope);
+        private @Nullable Object dereference()
+        {
+            final @Nullable Object current = value;
+            return current instanceof SoftReference<?> ref ? ref.get() : current;
+        }
     }
 
-    @Override
-    public boolean hasService(Class<?> klass)
+    protected static class CacheManager
     {
-        return mappingResult.hasRecord(klass);
-    }
+        private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 
-    @Override
-    public <T> T requestService(Class<T> klass) throws RuntimeException
-    {
-        return requestServiceScoped(this, klass);
-    }
+        @Getter
+        private final CachePolicy policy;
+        private final long expireAfterAccessNanos;
+        private final long expireAfterWriteNanos;
+        private final Executor evictionExecutor;
+        // Expired instances are swept by cache requests, at most once per interval.
+        private final long sweepIntervalNanos;
+        private final AtomicLong nextSweepNanos;
 
-    @SuppressWarnings("unchecked")
-    protected final <T> T requestServiceScoped(IServiceRequestable requestable, Class<T> klass)
-    {
-        if (!mappingResult.hasRecord(klass))
+        private final Map<Integer, CacheSlot> slotMap = new ConcurrentHashMap<>();
+        private final AtomicInteger liveCount = new AtomicInteger();
+        private final LongAdder disposalFailures = new LongAdder();
+
+        public CacheManager(CachePolicy policy)
         {
-            throw new NoSuchServiceException(klass);
+            this(policy, ForkJoinPool.commonPool());
+        }
+
+        public CacheManager(CachePolicy policy, Executor evictionExecutor)
+        {
+            this.policy = policy;
+            this.expireAfterAccessNanos = toNanos(policy.expireAfterAccess());
+            this.expireAfterWriteNanos = toNanos(policy.expireAfterWrite());
+            this.evictionExecutor = evictionExecutor;
+            this.sweepIntervalNanos = toSweepInterval(expireAfterAccessNanos, expireAfterWriteNanos);
+            this.nextSweepNanos = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
         }
 
-        final DependencyRecord currentRecord = mappingResult.getRecord(klass);
-        final ServiceDescriptor serviceDescriptor = currentRecord.descriptor();
-        final LifetimeType lifetimeType = serviceDescriptor.getLifetimeType();
-        final boolean shouldLock = lifetimeType != LifetimeType.TRANSIENT;
-        @Nullable SingletonManager singletonManager = null;
-        @Nullable ServiceHolder holder = null;
+        public CacheSlot getSlot(int index)
+        {
+            return slotMap.computeIfAbsent(index, it -> new CacheSlot());
+        }
 
-        if (shouldLock)
+        /**
+         * Gets the live instance of a slot, or null if it is absent, expired or was
+         * reclaimed by the garbage collector.
+         */
+        public @Nullable Object get(CacheSlot slot)
         {
-            singletonManager = scopeManager.getSingletonHolder(requestable);
-            holder = singletonManager.getHolder(klass);
+            final long now = System.nanoTime();
+            sweepIfDue(now);
 
-            if (holder.instance != null)
+            final @Nullable Object instance = slot.dereference();
+
+            if (instance == null)
             {
-                return (T) holder.instance;
+                return null;
             }
 
-            holder.lock();
-        }
-
-        try
-        {
-            if (shouldLock && holder.instance != null)
+            if (isExpired(slot, now))
             {
-                return (T) holder.instance;
+                return null;
             }
 
-            final ConstructorInjector ctorInjector = currentRecord.constructorInjector();
-            final List<Class<?>> expectedCtorTypes = ctorInjector.getExpectedTypes();
-            final Object[] ctorArgs = resolveParameters(requestable, expectedCtorTypes);
-            final @Nullable Object defaultObject = serviceDescriptor.getDefaultInstance();
+            slot.accessNanos = now;
+            return instance;
+        }
 
-            T serviceInstance = (T) (
-                defaultObject != null ?
-                defaultObject :
-                ctorInjector.getMethodHandle().invokeWithArguments(ctorArgs)
-            );
+        /**
+         * Stores a freshly constructed instance. The caller must hold the slot lock.
+         */
+        public void put(CacheSlot slot, Object instance)
+        {
+            final long now = System.nanoTime();
+            final boolean wasEmpty = slot.value == null;
 
-            if (shouldLock)
+            if (!wasEmpty)
             {
-                holder.instance = serviceInstance;
+                // Expired or reclaimed instance being replaced.
+                evict(slot, slot.dereference());
             }
 
-            for (FieldInjector injector : currentRecord.fieldInjectors())
+            slot.writeNanos = now;
+            slot.accessNanos = now;
+            slot.value = policy.softValues() ? new SoftReference<>(instance) : instance;
+
+            if (liveCount.incrementAndGet() > policy.maximumSize())
             {
-                Object value = requestService(injector.getExpectedType());
-                injector.getMethodHandle().bindTo(serviceInstance).invoke(value);
+                evictExpiredAndOverflow(slot, now);
             }
+        }
+
+        private void evictExpiredAndOverflow(CacheSlot keep, long now)
+        {
+            @Nullable CacheSlot oldest = null;
 
-            for (MethodInjector injector : currentRecord.methodInjectors())
+            for (CacheSlot slot : slotMap.values())
             {
-                if (injector.isStatic())
+                if (slot == keep || slot.value == null)
                 {
-                    throw new IllegalStateException(String.format(
-                        "DefaultServiceProvider couldn't handle static method. Passed method: %s",
-                        injector
-                    ));
+                    continue;
                 }
 
-                Object[] args = resolveParameters(requestable, injector.getExpectedTypes());
-                injector.getMethodHandle().bindTo(serviceInstance).invokeWithArguments(args);
+                final @Nullable Object instance = slot.dereference();
+
+                if (instance == null || isExpired(slot, now))
+                {
+                    tryEvict(slot, now, false);
+                }
+                else if (oldest == null || slot.accessNanos < oldest.accessNanos)
+                {
+                    oldest = slot;
+                }
             }
 
-            return serviceInstance;
+            if (oldest != null)
+            {
+                tryEvict(oldest, now, true);
+            }
         }
-        catch (Throwable err)
+
+        /**
+         * Evicts every expired or reclaimed instance once the sweep interval has
+         * passed, so instances that are no longer requested don't stay until the
+         * provider is closed. Only one of the concurrent requests sweeps.
+         */
+        private void sweepIfDue(long now)
         {
-            var msg = String.format(
-                "Exception when trying to resolve '%s'.",
-                klass.getTypeName()
-            );
+            final long next = nextSweepNanos.get();
+
+            if (sweepIntervalNanos < 0 || now - next < 0 ||
+                !nextSweepNanos.compareAndSet(next, now + sweepIntervalNanos))
+            {
+                return;
+            }
 
-            throw new RuntimeException(msg, err);
+            for (CacheSlot slot : slotMap.values())
+            {
+                if (slot.value != null && (slot.dereference() == null || isExpired(slot, now)))
+                {
+                    tryEvict(slot, now, false);
+                }
+            }
         }
-        finally
+
+        /**
+         * Evicts the current value of a slot if it is still expired or reclaimed,
+         * or, for an overflow, if the cache is still too large. The slot is read
+         * again under its lock, since another thread may have refreshed it.
+         */
+        private void tryEvict(CacheSlot slot, long now, boolean isOverflow)
         {
-            if (shouldLock)
+            // Skip slots that are being constructed, they will be revisited.
+            if (!slot.lock.tryLock())
             {
-                holder.unlock();
+                return;
             }
-        }
-    }
 
-    private Object[] resolveParameters(IServiceRequestable requestable, List<Class<?>> expectedTypes)
-    {
-        final Object[] args = new Object[expectedTypes.size()];
+            try
+            {
+                if (slot.value == null)
+                {
+                    return;
+                }
 
-        for (int i = 0; i < args.length; i++)
-        {
-            final Class<?> type = expectedTypes.get(i);
-            args[i] = requestServiceScoped(requestable, type);
-        }
+                final @Nullable Object instance = slot.dereference();
 
-        return args;
+                if (instance == null || isExpired(slot, now) ||
+                    isOverflow && liveCount.get() > policy.maximumSize())
+                {
+                    evict(slot, instance);
+                }
+            }
+            finally
+            {
+                slot.lock.unlock();
+            }
+        }
+
+        private void evict(CacheSlot slot, @Nullable Object instance)
+        {
+            slot.value = null;
+            liveCount.decrementAndGet();
+
+            if (instance != null)
+            {
+                final LifecycleHooks hooks = slot.hooks;
+
+                evictionExecutor.execute(() ->
+                {
+                    try
+                    {
+                        dispose(instance, hooks);
+                    }
+                    catch (Exception ignored)
+                    {
+                        // Nobody is left to observe the failure of an evicted service.
+                        disposalFailures.increment();
+                    }
+                });
+            }
+        }
+
+        public long getDisposalFailures()
+        {
+            return disposalFailures.sum();
+        }
+
+        private boolean isExpired(CacheSlot slot, long now)
+        {
+            return expireAfterWriteNanos >= 0 && now - slot.writeNanos >= expireAfterWriteNanos ||
+                expireAfterAccessNanos >= 0 && now - slot.accessNanos >= expireAfterAccessNanos;
+        }
+
+        public void close() throws Exception
+        {
+            @Nullable Exception failure = null;
+
+            for (CacheSlot slot : slotMap.values())
+            {
+                slot.lock.lock();
+                try
+                {
+                    final @Nullable Object instance = slot.dereference();
+
+                    if (slot.value != null)
+                    {
+                        slot.value = null;
+                        liveCount.decrementAndGet();
+                    }
+
+                    dispose(instance, slot.hooks);
+                }
+                catch (Exception err)
+                {
+                    if (failure == null)
+                    {
+                        failure = err;
+                    }
+                    else
+                    {
+                        failure.addSuppressed(err);
+                    }
+                }
+                finally
+                {
+                    slot.lock.unlock();
+                }
+            }
+
+            if (failure != null)
+            {
+                throw failure;
+            }
+        }
+
+        private static long toNanos(@Nullable Duration duration)
+        {
+            return duration == null ? -1 : duration.toNanos();
+        }
+
+        // The shortest expiration, or -1 if instances never expire.
+        private static long toSweepInterval(long expireAfterAccessNanos, long expireAfterWriteNanos)
+        {
+            if (expireAfterAccessNanos < 0 && expireAfterWriteNanos < 0)
+            {
+                return -1;
+            }
+
+            final long shortest = expireAfterAccessNanos < 0 ? expireAfterWriteNanos :
+                expireAfterWriteNanos < 0 ? expireAfterAccessNanos :
+                Math.min(expireAfterAccessNanos, expireAfterWriteNanos);
+            return Math.max(shortest, MIN_SWEEP_INTERVAL_NANOS);
+        }
+    }
+
+    protected static class Scope implements IServiceScope
+    {
+        @Getter
+        private final DefaultServiceProvider serviceProvider;
+
+        @Getter
+        private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+        private final ScopeState state;
+        private final IScopeStorage storage;
+        private final boolean isPooled;
+        private volatile boolean isClosed;
+        // Checkout of a pooled scope, changed under the write lock of closeLock.
+        private volatile long generation;
+
+        public Scope(DefaultServiceProvider serviceProvider)
+        {
+            this(serviceProvider, false);
+        }
+
+        protected Scope(DefaultServiceProvider serviceProvider, boolean isPooled)
+        {
+            this.serviceProvider = serviceProvider;
+            this.state = serviceProvider.scopeManager.track(this);
+            this.storage = state.storage;
+            this.isPooled = isPooled;
+        }
+
+        @Override
+        public boolean isClosed()
+        {
+            return isClosed;
+        }
+
+        @Override
+        public boolean hasService(Class<?> klass)
+        {
+            return serviceProvider.hasService(klass);
+        }
+
+        @Override
+        public <T> T requestService(Class<T> klass)
+        {
+            return requestService(klass, generation);
+        }
+
+        @Override
+        public <T> @Nullable T requestServiceOrNull(Class<T> klass)
+        {
+            return requestServiceOrNull(klass, generation);
+        }
+
+        private boolean isClosed(long checkout)
+        {
+            return isClosed || generation != checkout;
+        }
+
+        private void checkOpen(long checkout)
+        {
+            if (isClosed(checkout))
+            {
+                throw new IllegalStateException("Couldn't request service from closed scope.");
+            }
+        }
+
+        private <T> T requestService(Class<T> klass, long checkout)
+        {
+            closeLock.readLock().lock();
+            try
+            {
+                checkOpen(checkout);
+                return serviceProvider.requestServiceScoped(this, klass);
+            }
+            finally
+            {
+                closeLock.readLock().unlock();
+            }
+        }
+
+        private <T> @Nullable T requestServiceOrNull(Class<T> klass, long checkout)
+        {
+            closeLock.readLock().lock();
+            try
+            {
+                checkOpen(checkout);
+                return serviceProvider.requestServiceScopedOrNull(this, klass);
+            }
+            finally
+            {
+                closeLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public <T> ServiceHandle<T> handleFor(Class<T> klass)
+        {
+            return serviceProvider.handleFor(klass);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T requestBound(Binding<T> binding, long checkout)
+        {
+            if (binding.isHeld())
+            {
+                final @Nullable Object instance = binding.peek(storage);
+
+                if (instance != null && !isClosed(checkout))
+                {
+                    binding.countResolution();
+                    return binding.awaitInitialized((T) instance);
+                }
+            }
+
+            closeLock.readLock().lock();
+            try
+            {
+                checkOpen(checkout);
+                return binding.awaitInitialized(binding.resolve(this, storage));
+            }
+            finally
+            {
+                closeLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Opens a pooled scope again for a new checkout.
+         *
+         * @return the generation identifying the checkout
+         */
+        private long reopen()
+        {
+            closeLock.writeLock().lock();
+            try
+            {
+                isClosed = false;
+                state.open();
+                return ++generation;
+            }
+            finally
+            {
+                closeLock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            close(generation);
+        }
+
+        private void close(long checkout) throws Exception
+        {
+            closeLock.writeLock().lock();
+            try
+            {
+                if (isClosed(checkout))
+                {
+                    return;
+                }
+
+                isClosed = true;
+
+                if (isPooled)
+                {
+                    try
+                    {
+                        state.deactivate();
+                        serviceProvider.disposeStorage(storage);
+                    }
+                    finally
+                    {
+                        serviceProvider.releaseScope(this);
+                    }
+                }
+                else
+                {
+                    try
+                    {
+                        state.deactivate();
+                        serviceProvider.disposeStorage(storage);
+                    }
+                    finally
+                    {
+                        state.unregister();
+                    }
+                }
+            }
+            finally
+            {
+                closeLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Checkout of a pooled {@link Scope}. Every checkout gets its own lease, so a
+     * lease kept after closing fails instead of resolving from the instances of
+     * the next borrower of the scope.
+     */
+    protected static class PooledScope implements IServiceScope
+    {
+        private final Scope scope;
+        private final long generation;
+
+        protected PooledScope(Scope scope, long generation)
+        {
+            this.scope = scope;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean isClosed()
+        {
+            return scope.isClosed(generation);
+        }
+
+        @Override
+        public boolean hasService(Class<?> klass)
+        {
+            return scope.hasService(klass);
+        }
+
+        @Override
+        public <T> T requestService(Class<T> klass)
+        {
+            return scope.requestService(klass, generation);
+        }
+
+        @Override
+        public <T> @Nullable T requestServiceOrNull(Class<T> klass)
+        {
+            return scope.requestServiceOrNull(klass, generation);
+        }
+
+        @Override
+        public <T> ServiceHandle<T> handleFor(Class<T> klass)
+        {
+            return scope.handleFor(klass);
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            scope.close(generation);
+        }
+    }
+
+    /**
+     * Scope of {@link ScopeMode#CONFINED}, usable only by the thread that created
+     * it. It skips the close lock, and its storage is created for
+     * {@link ScopeMode#CONFINED}, so it needs no locks either.
+     */
+    protected static class ConfinedScope implements IServiceScope
+    {
+        @Getter
+        private final DefaultServiceProvider serviceProvider;
+
+        private final Thread owner;
+        private final IScopeStorage storage;
+        private boolean isClosed;
+
+        public ConfinedScope(DefaultServiceProvider serviceProvider)
+        {
+            this.serviceProvider = serviceProvider;
+            this.owner = Thread.currentThread();
+            this.storage = serviceProvider.scopeManager.createStorage(ScopeMode.CONFINED);
+        }
+
+        private void checkAccess()
+        {
+            if (Thread.currentThread() != owner)
+            {
+                throw new IllegalStateException(String.format(
+                    "Confined scope owned by %s was used by %s.",
+                    owner,
+                    Thread.currentThread()
+                ));
+            }
+
+            if (isClosed)
+            {
+                throw new IllegalStateException("Couldn't request service from closed scope.");
+            }
+        }
+
+        @Override
+        public boolean isClosed()
+        {
+            return isClosed;
+        }
+
+        @Override
+        public boolean hasService(Class<?> klass)
+        {
+            return serviceProvider.hasService(klass);
+        }
+
+        @Override
+        public <T> T requestService(Class<T> klass)
+        {
+            checkAccess();
+            return serviceProvider.requestServiceScoped(this, klass);
+        }
+
+        @Override
+        public <T> @Nullable T requestServiceOrNull(Class<T> klass)
+        {
+            checkAccess();
+            return serviceProvider.requestServiceScopedOrNull(this, klass);
+        }
+
+        @Override
+        public <T> ServiceHandle<T> handleFor(Class<T> klass)
+        {
+            return serviceProvider.handleFor(klass);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T requestBound(Binding<T> binding)
+        {
+            checkAccess();
+
+            if (binding.isHeld())
+            {
+                final @Nullable Object instance = binding.peek(storage);
+
+                if (instance != null)
+                {
+                    binding.countResolution();
+                    return binding.awaitInitialized((T) instance);
+                }
+            }
+
+            return binding.awaitInitialized(binding.resolve(this, storage));
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            if (Thread.currentThread() != owner)
+            {
+                throw new IllegalStateException(String.format(
+                    "Confined scope owned by %s was closed by %s.",
+                    owner,
+                    Thread.currentThread()
+                ));
+            }
+
+            if (isClosed)
+            {
+                return;
+            }
+
+            isClosed = true;
+            serviceProvider.disposeStorage(storage);
+        }
+    }
+
+    /**
+     * The dependency edges of a record, linked on its first construction.
+     */
+    private record Links(
+        Link[] constructor,
+        @Nullable Link[] fields,
+        Link[][] methods,
+        boolean hasInitializers
+    )
+    {
+    }
+
+    /**
+     * A dependency edge. How it is resolved is chosen from the plan once when
+     * linking, so resolving an edge doesn't check the lifetime of its binding.
+     */
+    private record Link(Binding<?> binding, Resolver resolver)
+    {
+        private Object resolve(IServiceRequestable requestable, IScopeStorage storage)
+        {
+            binding.countResolution();
+            return resolver.resolve(requestable, storage);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Resolver
+    {
+        Object resolve(IServiceRequestable requestable, IScopeStorage storage);
+    }
+
+    /**
+     * Binding of a requested type to its record and storage slot. Bindings are
+     * created once per provider and handed out as {@link ServiceHandle}s.
+     */
+    protected final class Binding<T> extends ServiceHandle<T>
+    {
+        @Getter
+        private final DependencyRecord record;
+
+        @Getter
+        private final LifetimeType lifetimeType;
+
+        // Index into singleton, scope, thread or cache storage, -1 when unused.
+        private final int slot;
+        private final @Nullable CacheSlot cacheSlot;
+
+        // Bindings of the record's dependencies, linked on first construction.
+        private volatile @Nullable Links links;
+
+        private Binding(Class<T> serviceType, DependencyRecord record, int slot)
+        {
+            super(serviceType);
+            this.record = record;
+            this.lifetimeType = record.descriptor().getLifetimeType();
+            this.slot = slot;
+            this.cacheSlot = lifetimeType == LifetimeType.CACHED ? cacheManager.getSlot(slot) : null;
+
+            if (cacheSlot != null)
+            {
+                cacheSlot.hooks = record.hooks();
+            }
+            else if (lifetimeType == LifetimeType.THREAD)
+            {
+                threadManager.setHooks(slot, record.hooks());
+            }
+            else if (lifetimeType == LifetimeType.SINGLETON)
+            {
+                singletonHooks.set(slot, record.hooks());
+            }
+            else if (lifetimeType == LifetimeType.SCOPED)
+            {
+                scopeManager.setHooks(slot, record.hooks());
+            }
+        }
+
+        private Links getLinks()
+        {
+            @Nullable Links output = links;
+
+            // Linking is idempotent, so racing threads may both link.
+            if (output == null)
+            {
+                output = link(record);
+                links = output;
+            }
+
+            return output;
+        }
+
+        private boolean isHeld()
+        {
+            return lifetimeType == LifetimeType.SINGLETON || lifetimeType == LifetimeType.SCOPED;
+        }
+
+        private @Nullable Object peek(IScopeStorage scopeStorage)
+        {
+            return (lifetimeType == LifetimeType.SINGLETON ? singletonStorage : scopeStorage).get(slot);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(IServiceRequestable requestable)
+        {
+            if (requestable == DefaultServiceProvider.this)
+            {
+                if (isHeld())
+                {
+                    final @Nullable Object instance = peek(rootStorage);
+
+                    if (instance != null)
+                    {
+                        countResolution();
+                        return awaitInitialized((T) instance);
+                    }
+                }
+
+                return awaitInitialized(resolve(requestable, rootStorage));
+            }
+
+            if (requestable instanceof Scope scope && scope.serviceProvider == DefaultServiceProvider.this)
+            {
+                return scope.requestBound(this, scope.generation);
+            }
+
+            if (requestable instanceof PooledScope lease && lease.scope.serviceProvider == DefaultServiceProvider.this)
+            {
+                return lease.scope.requestBound(this, lease.generation);
+            }
+
+            if (requestable instanceof ConfinedScope scope && scope.serviceProvider == DefaultServiceProvider.this)
+            {
+                return scope.requestBound(this);
+            }
+
+            return requestable.requestService(getServiceType());
+        }
+
+        private void countResolution()
+        {
+            if (statistics != null)
+            {
+                statistics.recordResolution(lifetimeType);
+            }
+        }
+
+        /**
+         * Blocks until the instance has been initialized by its
+         * {@code @OnInitialize} hook.
+         */
+        private T awaitInitialized(T instance)
+        {
+            if (!record.hooks().hasInitializer())
+            {
+                return instance;
+            }
+
+            final @Nullable CompletableFuture<?> initialization = findInitialization(instance);
+
+            if (initialization != null)
+            {
+                try
+                {
+                    initialization.join();
+                }
+                catch (CompletionException | CancellationException err)
+                {
+                    final Throwable cause = err.getCause() != null ? err.getCause() : err;
+                    throw new ResolutionException(getServiceType(), cause, captureStackTraces);
+                }
+            }
+
+            return instance;
+        }
+
+        /**
+         * Adds the pending initialization of a dependency to the ones the
+         * dependent must wait for.
+         */
+        private void collectInitialization(Object instance, List<CompletableFuture<?>> pending)
+        {
+            if (!record.hooks().hasInitializer())
+            {
+                return;
+            }
+
+            final @Nullable CompletableFuture<?> initialization = findInitialization(instance);
+
+            if (initialization != null)
+            {
+                pending.add(initialization);
+            }
+        }
+
+        /**
+         * Finds the pending or failed initialization of an instance. A transient
+         * instance is handed to a single request, which takes its initialization
+         * out of the tracked ones.
+         */
+        private @Nullable CompletableFuture<?> findInitialization(Object instance)
+        {
+            final InstanceKey key = new InstanceKey(instance);
+
+            if (lifetimeType == LifetimeType.TRANSIENT)
+            {
+                return initializations.remove(key);
+            }
+
+            final @Nullable CompletableFuture<?> initialization = initializations.get(key);
+
+            if (initialization != null)
+            {
+                return initialization;
+            }
+
+            final @Nullable Throwable failure = failedInitializations.get(new WeakInstanceKey(instance, null));
+            return failure == null ? null : CompletableFuture.failedFuture(failure);
+        }
+
+        /**
+         * Links an edge to this binding, resolved the way the plan of the
+         * dependent chose.
+         */
+        private Link linkAs(ResolutionPlan.Resolution resolution)
+        {
+            if (resolution != ResolutionPlan.Resolution.of(lifetimeType))
+            {
+                throw new IllegalStateException(String.format(
+                    "The plan resolves %s as %s, but it is registered as %s.",
+                    getServiceType().getName(),
+                    resolution,
+                    lifetimeType
+                ));
+            }
+
+            final Resolver resolver = switch (resolution)
+            {
+                case EACH_TIME -> (requestable, storage) -> constructService(requestable, storage, this);
+                case PER_THREAD -> (requestable, storage) -> requestThreadService(this);
+                case CACHED -> (requestable, storage) -> requestCachedService(this);
+                case ONCE -> (requestable, storage) ->
+                    requestStoredService(singletonStorage, DefaultServiceProvider.this, rootStorage, this);
+                case PER_SCOPE -> (requestable, storage) -> requestStoredService(storage, requestable, storage, this);
+                case CONSTANT -> throw new IllegalArgumentException("Constants aren't linked.");
+            };
+
+            return new Link(this, resolver);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T resolve(IServiceRequestable requestable, IScopeStorage storage)
+        {
+            countResolution();
+
+            return (T) switch (lifetimeType)
+            {
+                case TRANSIENT -> constructService(requestable, storage, this);
+                case THREAD -> requestThreadService(this);
+                case CACHED -> requestCachedService(this);
+                // Singletons resolve their dependencies from the provider, so they don't
+                // depend on the scope that happens to request them first.
+                case SINGLETON -> requestStoredService(singletonStorage, DefaultServiceProvider.this, rootStorage, this);
+                case SCOPED -> requestStoredService(storage, requestable, storage, this);
+            };
+        }
+    }
+
+    public DefaultServiceProvider(MappingResult mappingResult)
+    {
+        this(mappingResult, ProviderOptions.defaults());
+    }
+
+    public DefaultServiceProvider(MappingResult mappingResult, ProviderOptions options)
+    {
+        this(new ProviderTemplate(mappingResult, options));
+    }
+
+    public DefaultServiceProvider(ProviderTemplate template)
+    {
+        this(template, new CacheManager(template.getOptions().cachePolicy()));
+    }
+
+    protected DefaultServiceProvider(MappingResult mappingResult, ProviderOptions options, CacheManager cacheManager)
+    {
+        this(new ProviderTemplate(mappingResult, options), cacheManager);
+    }
+
+    protected DefaultServiceProvider(ProviderTemplate template, CacheManager cacheManager)
+    {
+        final ProviderOptions options = template.getOptions();
+
+        this.template = template;
+        this.mappingResult = template.getMappingResult();
+        this.cacheManager = cacheManager;
+        this.captureStackTraces = options.captureStackTraces();
+        this.statistics = options.monitoring() ? new ProviderStatistics() : null;
+        this.scopePool = options.scopePoolCapacity() > 0 ?
+            new ArrayBlockingQueue<>(options.scopePoolCapacity()) :
+            null;
+
+        // Bindings register their hooks with the storages, so those come first.
+        this.singletonStorage = new ConcurrentScopeStorage(template.getSingletonSlotCount());
+        this.singletonHooks = new AtomicReferenceArray<>(template.getSingletonSlotCount());
+        this.scopeManager = new ScopeManager(template.getScopedSlotCount(), options.scopeStorageFactory());
+        this.threadManager = new ThreadManager(template.getThreadSlotCount());
+
+        if (mappingResult.isLazy())
+        {
+            this.bindingMap = new ConcurrentHashMap<>();
+            this.lazySlotMap = template.getSlotMap();
+        }
+        else
+        {
+            final Map<Class<?>, DependencyRecord> records = mappingResult.getRecordMap();
+            final Map<Class<?>, Binding<?>> bindings = new HashMap<>((int) (records.size() / 0.75f) + 1);
+
+            for (var entry : records.entrySet())
+            {
+                bindings.put(entry.getKey(), createBinding(entry.getKey(), entry.getValue(), template.getSlot(entry.getKey())));
+            }
+
+            this.bindingMap = bindings;
+            this.lazySlotMap = null;
+        }
+
+        this.rootStorage = scopeManager.createStorage(ScopeMode.SHARED);
+    }
+
+    private <T> Binding<T> createBinding(Class<T> serviceType, DependencyRecord record, int slot)
+    {
+        return new Binding<>(serviceType, record, slot);
+    }
+
+    @Override
+    public IServiceScope createScope()
+    {
+        return new Scope(this);
+    }
+
+    @Override
+    public IServiceScope createScope(ScopeMode mode)
+    {
+        return switch (mode)
+        {
+            case SHARED -> new Scope(this);
+            case CONFINED -> new ConfinedScope(this);
+        };
+    }
+
+    @Override
+    public IServiceScope createPooledScope()
+    {
+        final @Nullable Scope scope = scopePool == null ? null : scopePool.poll();
+
+        if (scope == null)
+        {
+            return new PooledScope(new Scope(this, true), 0);
+        }
+
+        return new PooledScope(scope, scope.reopen());
+    }
+
+    @Override
+    public void closeScope(IServiceScope scope) throws Exception
+    {
+        if (scope instanceof Scope ownScope && ownScope.serviceProvider == this)
+        {
+            ownScope.close();
+            return;
+        }
+
+        if (scope instanceof PooledScope lease && lease.scope.serviceProvider == this)
+        {
+            lease.close();
+            return;
+        }
+
+        if (scope instanceof ConfinedScope confinedScope && confinedScope.serviceProvider == this)
+        {
+            confinedScope.close();
+            return;
+        }
+
+        scopeManager.close(scope);
+    }
+
+    private void releaseScope(Scope scope)
+    {
+        if (scopePool == null || !scopePool.offer(scope))
+        {
+            scope.state.unregister();
+        }
+    }
+
+    @Override
+    public ScopeStatistics getScopeStatistics()
+    {
+        return scopeManager.getStatistics();
+    }
+
+    @Override
+    public boolean hasService(Class<?> klass)
+    {
+        return mappingResult.hasRecord(klass);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ServiceHandle<T> handleFor(Class<T> klass)
+    {
+        final @Nullable Binding<?> binding = getBinding(klass);
+
+        if (binding == null)
+        {
+            throw new NoSuchServiceException(klass);
+        }
+
+        return (ServiceHandle<T>) binding;
+    }
+
+    @Override
+    public <T> T requestService(Class<T> klass) throws RuntimeException
+    {
+        return requestServiceScoped(this, klass);
+    }
+
+    @Override
+    public <T> @Nullable T requestServiceOrNull(Class<T> klass)
+    {
+        return requestServiceScopedOrNull(this, klass);
+    }
+
+    /**
+     * Registers the monitoring MBean of this provider when monitoring is
+     * enabled. Registration failures are logged, they don't fail the provider.
+     */
+    void startMonitoring()
+    {
+        if (statistics == null)
+        {
+            return;
+        }
+
+        try
+        {
+            final ObjectName name = new ObjectName(
+                "io.krazy.dependency:type=ServiceProvider,id=" + PROVIDER_IDS.incrementAndGet()
+            );
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new ProviderMonitor(this), name);
+            monitorName = name;
+        }
+        catch (JMException err)
+        {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to register the provider MBean.", err);
+        }
+    }
+
+    long getDisposalFailureCount()
+    {
+        return disposalFailures.sum() +
+            scopeManager.getDisposalFailures() +
+            threadManager.getDisposalFailures() +
+            cacheManager.getDisposalFailures();
+    }
+
+    private void disposeStorage(IScopeStorage storage) throws Exception
+    {
+        disposeStorage(storage, scopeManager.slotHooks);
+    }
+
+    private void disposeStorage(IScopeStorage storage, AtomicReferenceArray<LifecycleHooks> hooks) throws Exception
+    {
+        try
+        {
+            disposeAll(storage, hooks);
+        }
+        catch (Exception err)
+        {
+            disposalFailures.increment();
+            throw err;
+        }
+    }
+
+    void startWarmUp()
+    {
+        if (!template.getWarmUpGroups().isEmpty())
+        {
+            warmUp = WarmUp.start(this, template.getWarmUpGroups());
+        }
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        final @Nullable WarmUp currentWarmUp = warmUp;
+
+        if (currentWarmUp != null)
+        {
+            currentWarmUp.cancel();
+        }
+
+        @Nullable Exception failure = null;
+
+        try
+        {
+            failure = runDisposal(failure, () -> countFailure(threadManager::close));
+            failure = runDisposal(failure, () -> countFailure(cacheManager::close));
+            failure = runDisposal(failure, () -> disposeStorage(rootStorage));
+        }
+        finally
+        {
+            try
+            {
+                // Singletons are disposed of even if other services failed.
+                failure = runDisposal(failure, () -> disposeStorage(singletonStorage, singletonHooks));
+            }
+            finally
+            {
+                failedInitializations.clear();
+                unregisterMonitor();
+            }
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    private void countFailure(AutoCloseable step) throws Exception
+    {
+        try
+        {
+            step.close();
+        }
+        catch (Exception err)
+        {
+            disposalFailures.increment();
+            throw err;
+        }
+    }
+
+    /**
+     * Runs a disposal step, adding its failure to the failures of earlier steps
+     * as a suppressed exception.
+     *
+     * @return the first failure, or null if every step succeeded
+     */
+    private static @Nullable Exception runDisposal(@Nullable Exception failure, AutoCloseable step)
+    {
+        try
+        {
+            step.close();
+        }
+        catch (Exception err)
+        {
+            if (failure == null)
+            {
+                return err;
+            }
+
+            failure.addSuppressed(err);
+        }
+
+        return failure;
+    }
+
+    private void unregisterMonitor()
+    {
+        final @Nullable ObjectName name = monitorName;
+
+        if (name == null)
+        {
+            return;
+        }
+
+        monitorName = null;
+
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+        catch (JMException err)
+        {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to unregister the provider MBean.", err);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final <T> T requestServiceScoped(IServiceRequestable requestable, Class<T> klass)
+    {
+        final @Nullable Binding<T> binding = (Binding<T>) getBinding(klass);
+
+        if (binding == null)
+        {
+            throw new NoSuchServiceException(klass);
+        }
+
+        return binding.awaitInitialized(binding.resolve(requestable, getStorage(requestable)));
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final <T> @Nullable T requestServiceScopedOrNull(IServiceRequestable requestable, Class<T> klass)
+    {
+        final @Nullable Binding<T> binding = (Binding<T>) getBinding(klass);
+        return binding == null ? null : binding.awaitInitialized(binding.resolve(requestable, getStorage(requestable)));
+    }
+
+    private @Nullable Binding<?> getBinding(Class<?> klass)
+    {
+        final @Nullable Binding<?> binding = bindingMap.get(klass);
+
+        // The registered services are fixed once the provider is built, so the slot
+        // map answers for absent types without consulting the mapping.
+        if (binding != null || lazySlotMap == null || !lazySlotMap.containsKey(klass))
+        {
+            return binding;
+        }
+
+        // Maps and validates the service's subgraph on first request.
+        final DependencyRecord record = mappingResult.getRecord(klass);
+        return bindingMap.computeIfAbsent(klass, it -> createBinding(it, record, lazySlotMap.get(it)));
+    }
+
+    private IScopeStorage getStorage(IServiceRequestable requestable)
+    {
+        if (requestable == this)
+        {
+            return rootStorage;
+        }
+
+        if (requestable instanceof Scope scope && scope.serviceProvider == this)
+        {
+            return scope.storage;
+        }
+
+        if (requestable instanceof ConfinedScope scope && scope.serviceProvider == this)
+        {
+            return scope.storage;
+        }
+
+        return scopeManager.getStorage(requestable);
+    }
+
+    /**
+     * Gets a singleton or scoped service from its storage, constructing it with
+     * the requestable and storage its dependencies are resolved from.
+     */
+    private Object requestStoredService(
+        IScopeStorage target,
+        IServiceRequestable requestable,
+        IScopeStorage storage,
+        Binding<?> binding
+    )
+    {
+        final @Nullable Object instance = target.get(binding.slot);
+
+        if (instance != null)
+        {
+            return instance;
+        }
+
+        return target.computeIfAbsent(binding.slot, () -> constructService(requestable, storage, binding));
+    }
+
+    private Object requestThreadService(Binding<?> binding)
+    {
+        final Object[] threadSlots = threadManager.getThreadSlots();
+        @Nullable Object instance = threadSlots[binding.slot];
+
+        if (instance == null)
+        {
+            instance = constructService(this, rootStorage, binding);
+            threadSlots[binding.slot] = instance;
+        }
+
+        return instance;
+    }
+
+    private Object requestCachedService(Binding<?> binding)
+    {
+        final CacheSlot slot = Objects.requireNonNull(binding.cacheSlot);
+        @Nullable Object instance = cacheManager.get(slot);
+
+        if (instance != null)
+        {
+            return instance;
+        }
+
+        slot.lock.lock();
+        try
+        {
+            instance = cacheManager.get(slot);
+
+            if (instance == null)
+            {
+                instance = constructService(this, rootStorage, binding);
+                cacheManager.put(slot, instance);
+            }
+
+            return instance;
+        }
+        finally
+        {
+            slot.lock.unlock();
+        }
+    }
+
+    /**
+     * Constructs a service, resolving its dependencies through the bindings
+     * linked by its plan. Dependencies share the requestable and storage of the
+     * service, so no lookup happens per dependency.
+     * <p>
+     * Every dependency is resolved before the service is constructed, so the
+     * asynchronous initializations of sibling dependencies overlap, and the
+     * service waits for all of them at once.
+     */
+    private Object constructService(IServiceRequestable requestable, IScopeStorage storage, Binding<?> binding)
+    {
+        final long start = statistics != null ? System.nanoTime() : 0;
+
+        try
+        {
+            final DependencyRecord record = binding.record;
+            final Links links = binding.getLinks();
+            final @Nullable List<CompletableFuture<?>> pending = links.hasInitializers ? new ArrayList<>() : null;
+            final @Nullable Object defaultObject = record.descriptor().getDefaultInstance();
+
+            final Object @Nullable [] ctorArgs = defaultObject != null ?
+                null :
+                resolveLinks(requestable, storage, links.constructor, pending);
+
+            final List<FieldInjector> fieldInjectors = record.fieldInjectors();
+            final Object[] fieldValues = new Object[fieldInjectors.size()];
+            for (int i = 0; i < fieldValues.length; i++)
+            {
+                final @Nullable Link link = links.fields[i];
+
+                if (link == null)
+                {
+                    fieldValues[i] = fieldInjectors.get(i).getConstantValue();
+                }
+                else
+                {
+                    fieldValues[i] = resolveLink(requestable, storage, link, pending);
+                }
+            }
+
+            final List<MethodInjector> methodInjectors = record.methodInjectors();
+            final Object[][] methodArgs = new Object[methodInjectors.size()][];
+            for (int i = 0; i < methodArgs.length; i++)
+            {
+                if (methodInjectors.get(i).isStatic())
+                {
+                    throw new IllegalStateException(String.format(
+                        "DefaultServiceProvider couldn't handle static method. Passed method: %s",
+                        methodInjectors.get(i)
+                    ));
+                }
+
+                methodArgs[i] = resolveLinks(requestable, storage, links.methods[i], pending);
+            }
+
+            if (pending != null && !pending.isEmpty())
+            {
+                awaitAll(pending);
+            }
+
+            final Object serviceInstance = ctorArgs == null ?
+                defaultObject :
+                (Object) record.constructorInjector().getFactoryHandle().invokeExact(ctorArgs);
+
+            for (int i = 0; i < fieldValues.length; i++)
+            {
+                fieldInjectors.get(i).getMethodHandle().bindTo(serviceInstance).invoke(fieldValues[i]);
+            }
+
+            for (int i = 0; i < methodArgs.length; i++)
+            {
+                methodInjectors.get(i).getMethodHandle().bindTo(serviceInstance).invokeWithArguments(methodArgs[i]);
+            }
+
+            final @Nullable MethodInjector initializer = record.hooks().initializer();
+            if (initializer != null)
+            {
+                startInitialization(serviceInstance, initializer.getMethodHandle().invoke(serviceInstance), binding);
+            }
+
+            if (statistics != null)
+            {
+                statistics.recordConstruction(binding.getServiceType(), binding.lifetimeType, System.nanoTime() - start);
+            }
+
+            return serviceInstance;
+        }
+        catch (ResolutionException err)
+        {
+            err.addDependent(binding.getServiceType());
+            throw err;
+        }
+        catch (Throwable err)
+        {
+            throw new ResolutionException(binding.getServiceType(), err, captureStackTraces);
+        }
+    }
+
+    /**
+     * Tracks the initialization returned by a hook until it completes. The
+     * failure of a stored instance is kept until the instance is disposed of, so
+     * every later request reports it. The failure of a transient instance stays
+     * tracked until the request receiving the instance takes it.
+     */
+    private void startInitialization(Object instance, @Nullable Object result, Binding<?> binding)
+    {
+        if (!(result instanceof CompletionStage<?> stage))
+        {
+            return;
+        }
+
+        final CompletableFuture<?> initialization = stage.toCompletableFuture();
+
+        if (initialization.isDone() && !initialization.isCompletedExceptionally())
+        {
+            return;
+        }
+
+        final InstanceKey key = new InstanceKey(instance);
+        final boolean isStored = binding.lifetimeType != LifetimeType.TRANSIENT;
+        initializations.put(key, initialization);
+        initialization.whenComplete((ignored, err) ->
+        {
+            if (err != null)
+            {
+                if (!isStored)
+                {
+                    return;
+                }
+
+                expungeFailedInitializations();
+                failedInitializations.put(new WeakInstanceKey(instance, failedInstances), err);
+            }
+
+            initializations.remove(key, initialization);
+        });
+    }
+
+    /**
+     * Removes the failures of instances that were garbage collected.
+     */
+    private void expungeFailedInitializations()
+    {
+        Reference<?> ref;
+
+        while ((ref = failedInstances.poll()) != null)
+        {
+            failedInitializations.remove(ref);
+        }
+    }
+
+    private static void awaitAll(List<CompletableFuture<?>> pending) throws Throwable
+    {
+        try
+        {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture<?>[]::new)).join();
+        }
+        catch (CompletionException err)
+        {
+            throw err.getCause() != null ? err.getCause() : err;
+        }
+    }
+
+    private static Object resolveLink(
+        IServiceRequestable requestable,
+        IScopeStorage storage,
+        Link link,
+        @Nullable List<CompletableFuture<?>> pending
+    )
+    {
+        final Object value = link.resolve(requestable, storage);
+
+        if (pending != null)
+        {
+            link.binding.collectInitialization(value, pending);
+        }
+
+        return value;
+    }
+
+    private static Object[] resolveLinks(
+        IServiceRequestable requestable,
+        IScopeStorage storage,
+        Link[] links,
+        @Nullable List<CompletableFuture<?>> pending
+    )
+    {
+        final Object[] args = new Object[links.length];
+
+        for (int i = 0; i < args.length; i++)
+        {
+            args[i] = resolveLink(requestable, storage, links[i], pending);
+        }
+
+        return args;
+    }
+
+    /**
+     * Disposes of every instance of a storage and clears it. Every instance is
+     * disposed of even if others fail, the first failure is thrown with the
+     * others suppressed.
+     */
+    protected static void disposeAll(IScopeStorage storage, AtomicReferenceArray<LifecycleHooks> hooks) throws Exception
+    {
+        final List<Exception> failures = new ArrayList<>(0);
+
+        try
+        {
+            storage.forEach((instance, slot) ->
+            {
+                try
+                {
+                    dispose(instance, hooks.get(slot));
+                }
+                catch (Exception err)
+                {
+                    failures.add(err);
+                }
+            });
+        }
+        finally
+        {
+            storage.clear();
+        }
+
+        if (!failures.isEmpty())
+        {
+            final Exception failure = failures.get(0);
+
+            for (int i = 1; i < failures.size(); i++)
+            {
+                failure.addSuppressed(failures.get(i));
+            }
+
+            throw failure;
+        }
+    }
+
+    /**
+     * Runs the dispose hook of an instance, then closes it if it is closeable.
+     */
+    protected static void dispose(@Nullable Object instance, @Nullable LifecycleHooks hooks) throws Exception
+    {
+        if (instance == null)
+        {
+            return;
+        }
+
+        try
+        {
+            final @Nullable MethodInjector disposer = hooks == null ? null : hooks.disposer();
+
+            if (disposer != null)
+            {
+                disposer.getMethodHandle().invoke(instance);
+            }
+        }
+        catch (Throwable err)
+        {
+            throw new IllegalStateException(err);
+        }
+        finally
+        {
+            if (instance instanceof AutoCloseable closeable)
+            {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * Links the dependencies of a record to their bindings, following the
+     * record's plan when it has one.
+     */
+    private Links link(DependencyRecord record)
+    {
+        final @Nullable ResolutionPlan plan = record.plan();
+        final List<FieldInjector> fieldInjectors = record.fieldInjectors();
+        final List<MethodInjector> methodInjectors = record.methodInjectors();
+        final @Nullable Binding<?> decorated = linkDecorated(record);
+
+        final Link[] constructor = plan != null ?
+            linkDependencies(plan.constructorDependencies(), decorated) :
+            linkTypes(record.constructorInjector().getExpectedTypes(), decorated);
+
+        final Link[] fields = new Link[fieldInjectors.size()];
+        for (int i = 0; i < fields.length; i++)
+        {
+            final FieldInjector injector = fieldInjectors.get(i);
+
+            if (!injector.isConstant())
+            {
+                fields[i] = plan != null ?
+                    linkDependency(plan.fieldDependencies().get(i), decorated) :
+                    linkType(injector.getExpectedType(), decorated);
+            }
+        }
+
+        final Link[][] methods = new Link[methodInjectors.size()][];
+        for (int i = 0; i < methods.length; i++)
+        {
+            methods[i] = plan != null ?
+                linkDependencies(plan.methodDependencies().get(i), decorated) :
+                linkTypes(methodInjectors.get(i).getExpectedTypes(), decorated);
+        }
+
+        return new Links(constructor, fields, methods, hasInitializers(constructor, fields, methods));
+    }
+
+    private static boolean hasInitializers(
+        Link[] constructor,
+        @Nullable Link[] fields,
+        Link[][] methods
+    )
+    {
+        final List<@Nullable Link> links = new ArrayList<>(List.of(constructor));
+        links.addAll(Arrays.asList(fields));
+
+        for (Link[] method : methods)
+        {
+            links.addAll(List.of(method));
+        }
+
+        for (@Nullable Link link : links)
+        {
+            if (link != null && link.binding.record.hooks().hasInitializer())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates the binding of the service wrapped by a decorator. It has no slot,
+     * a new instance is constructed for every instance of the decorator.
+     */
+    private @Nullable Binding<?> linkDecorated(DependencyRecord record)
+    {
+        final @Nullable DependencyRecord decorated = record.decorated();
+        final @Nullable Class<?> decoratedType = record.descriptor().getDecoratedType();
+
+        return decorated == null || decoratedType == null ? null : createBinding(decoratedType, decorated, -1);
+    }
+
+    private Link[] linkDependencies(List<ResolutionPlan.Dependency> dependencies, @Nullable Binding<?> decorated)
+    {
+        final Link[] output = new Link[dependencies.size()];
+
+        for (int i = 0; i < output.length; i++)
+        {
+            output[i] = linkDependency(dependencies.get(i), decorated);
+        }
+
+        return output;
+    }
+
+    private Link linkDependency(ResolutionPlan.Dependency dependency, @Nullable Binding<?> decorated)
+    {
+        return findLinkedBinding(dependency.serviceType(), decorated).linkAs(dependency.resolution());
+    }
+
+    private Link[] linkTypes(List<Class<?>> types, @Nullable Binding<?> decorated)
+    {
+        final Link[] output = new Link[types.size()];
+
+        for (int i = 0; i < output.length; i++)
+        {
+            output[i] = linkType(types.get(i), decorated);
+        }
+
+        return output;
+    }
+
+    // Records mapped without a plan are resolved by the lifetime of each binding.
+    private Link linkType(Class<?> type, @Nullable Binding<?> decorated)
+    {
+        final Binding<?> binding = findLinkedBinding(type, decorated);
+        return binding.linkAs(ResolutionPlan.Resolution.of(binding.lifetimeType));
+    }
+
+    private Binding<?> findLinkedBinding(Class<?> type, @Nullable Binding<?> decorated)
+    {
+        // A decorator receives the service it wraps instead of itself.
+        if (decorated != null && decorated.getServiceType() == type)
+        {
+            return decorated;
+        }
+
+        final @Nullable Binding<?> binding = getBinding(type);
+
+        if (binding == null)
+        {
+            throw new NoSuchServiceException(type);
+        }
+
+        return binding;
     }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.DependencyRecord;
+import io.krazy.dependency.api.LifetimeType;
+import io.krazy.dependency.api.ResolutionPlan;
+import io.krazy.dependency.api.injector.FieldInjector;
+import io.krazy.dependency.api.injector.MethodInjector;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * JMX view of a {@link DefaultServiceProvider}. Reads never block resolution:
+ * counters are sampled and scope figures are computed from a snapshot of the
+ * live scopes.
+ */
+final class ProviderMonitor implements ProviderMonitorMXBean
+{
+    private static final String[] INSTANCE_BUCKETS = { "0", "1", "2-3", "4-7", "8-15", "16-31", "32+" };
+
+    private final DefaultServiceProvider provider;
+
+    ProviderMonitor(DefaultServiceProvider provider)
+    {
+        this.provider = provider;
+    }
+
+    @Override
+    public int getLiveScopeCount()
+    {
+        return provider.getScopeStatistics().getLiveCount();
+    }
+
+    @Override
+    public long getScopesCreated()
+    {
+        return provider.getScopeStatistics().createdCount();
+    }
+
+    @Override
+    public long getScopesLeaked()
+    {
+        return provider.getScopeStatistics().leakedCount();
+    }
+
+    @Override
+    public long getOldestScopeAgeMillis()
+    {
+        return provider.getScopeStatistics().getOldestAge().toMillis();
+    }
+
+    @Override
+    public Map<String, Long> getScopedInstancesPerScope()
+    {
+        final Map<String, Long> output = new LinkedHashMap<>();
+
+        for (String bucket : INSTANCE_BUCKETS)
+        {
+            output.put(bucket, 0L);
+        }
+
+        for (int count : provider.getScopeManager().getInstanceCounts())
+        {
+            output.merge(INSTANCE_BUCKETS[bucketOf(count)], 1L, Long::sum);
+        }
+
+        return output;
+    }
+
+    // 0, 1, then one bucket per power of two up to the last one.
+    private static int bucketOf(int count)
+    {
+        if (count <= 1)
+        {
+            return count;
+        }
+
+        return Math.min(32 - Integer.numberOfLeadingZeros(count), INSTANCE_BUCKETS.length - 1);
+    }
+
+    @Override
+    public long getSingletonsCreated()
+    {
+        final @Nullable ProviderStatistics statistics = provider.getStatistics();
+        return statistics == null ? 0 : statistics.getSingletonsCreated();
+    }
+
+    @Override
+    public Map<String, Long> getResolutionCounts()
+    {
+        final Map<String, Long> output = new TreeMap<>();
+        final @Nullable ProviderStatistics statistics = provider.getStatistics();
+
+        for (LifetimeType lifetimeType : LifetimeType.values())
+        {
+            output.put(lifetimeType.name(), statistics == null ? 0 : statistics.getResolutionCount(lifetimeType));
+        }
+
+        return output;
+    }
+
+    @Override
+    public Map<String, Double> getResolutionRates()
+    {
+        final Map<String, Double> output = new TreeMap<>();
+        final @Nullable ProviderStatistics statistics = provider.getStatistics();
+
+        for (LifetimeType lifetimeType : LifetimeType.values())
+        {
+            output.put(lifetimeType.name(), statistics == null ? 0 : statistics.getResolutionRate(lifetimeType));
+        }
+
+        return output;
+    }
+
+    @Override
+    public Map<String, Double> getAverageConstructionMillis()
+    {
+        return constructionTimes(ProviderStatistics.ConstructionTimes::getAverageMillis);
+    }
+
+    @Override
+    public Map<String, Double> getP99ConstructionMillis()
+    {
+        return constructionTimes(it -> it.getPercentileMillis(99));
+    }
+
+    private Map<String, Double> constructionTimes(ToDoubleFunction<ProviderStatistics.ConstructionTimes> metric)
+    {
+        final Map<String, Double> output = new TreeMap<>();
+        final @Nullable ProviderStatistics statistics = provider.getStatistics();
+
+        if (statistics != null)
+        {
+            for (var entry : statistics.getConstructionTimes().entrySet())
+            {
+                output.put(entry.getKey().getName(), metric.applyAsDouble(entry.getValue()));
+            }
+        }
+
+        return output;
+    }
+
+    @Override
+    public long getDisposalFailures()
+    {
+        return provider.getDisposalFailureCount();
+    }
+
+    @Override
+    public String dumpDependencyGraph()
+    {
+        final Map<String, DependencyRecord> records = new TreeMap<>();
+
+        for (var entry : provider.getMappingResult().getRecordMap().entrySet())
+        {
+            records.put(entry.getKey().getName(), entry.getValue());
+        }
+
+        final StringBuilder builder = new StringBuilder();
+
+        for (var entry : records.entrySet())
+        {
+            final DependencyRecord record = entry.getValue();
+            builder.append(entry.getKey())
+                .append(" [").append(record.descriptor().getLifetimeType()).append(']');
+
+            final List<String> dependencies = dependencyNames(record);
+            if (!dependencies.isEmpty())
+            {
+                builder.append(" -> ").append(String.join(", ", dependencies));
+            }
+
+            builder.append('\n');
+        }
+
+        final int unmapped = provider.getMappingResult().getServiceTypes().size() - records.size();
+        if (unmapped > 0)
+        {
+            builder.append('(').append(unmapped).append(" services not mapped yet)\n");
+        }
+
+        return builder.toString();
+    }
+
+    private static List<String> dependencyNames(DependencyRecord record)
+    {
+        final List<String> output = new ArrayList<>();
+        final @Nullable ResolutionPlan plan = record.plan();
+
+        if (plan != null)
+        {
+            plan.constructorDependencies().forEach(it -> output.add(it.serviceType().getName()));
+            plan.fieldDependencies().stream()
+                .filter(it -> it.resolution() != ResolutionPlan.Resolution.CONSTANT)
+                .forEach(it -> output.add(it.serviceType().getName()));
+            plan.methodDependencies().forEach(method -> method.forEach(it -> output.add(it.serviceType().getName())));
+            return output;
+        }
+
+        record.constructorInjector().getExpectedTypes().forEach(it -> output.add(it.getName()));
+
+        for (FieldInjector injector : record.fieldInjectors())
+        {
+            if (!injector.isConstant())
+            {
+                output.add(injector.getExpectedType().getName());
+            }
+        }
+
+        for (MethodInjector injector : record.methodInjectors())
+        {
+            injector.getExpectedTypes().forEach(it -> output.add(it.getName()));
+        }
+
+        return output;
+    }
+
+    @Override
+    public int closeStaleScopes(long olderThanMillis)
+    {
+        return provider.getScopeManager().closeStale(TimeUnit.MILLISECONDS.toNanos(olderThanMillis));
+    }
+}
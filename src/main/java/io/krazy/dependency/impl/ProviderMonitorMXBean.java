@@ -0,0 +1,111 @@
+package io.krazy.dependency.impl;
+
+import java.util.Map;
+
+/**
+ * Management interface of a {@link DefaultServiceProvider}, registered when
+ * {@link ProviderOptions#monitoring()} is enabled. Resolution statistics count
+ * every resolved service, including dependencies, and construction times
+ * include the resolution of dependencies.
+ */
+public interface ProviderMonitorMXBean
+{
+    /**
+     * Returns the number of scopes that are open and still reachable.
+     *
+     * @return the number of live scopes
+     */
+    int getLiveScopeCount();
+
+    /**
+     * Returns the number of scopes opened, counting every reuse of a pooled
+     * scope.
+     *
+     * @return the number of scopes created
+     */
+    long getScopesCreated();
+
+    /**
+     * Returns the number of scopes reclaimed without being closed.
+     *
+     * @return the number of leaked scopes
+     */
+    long getScopesLeaked();
+
+    /**
+     * Returns the age of the oldest live scope.
+     *
+     * @return the age in milliseconds, zero if there is no live scope
+     */
+    long getOldestScopeAgeMillis();
+
+    /**
+     * Returns how many live scopes hold a number of scoped instances, keyed by
+     * ranges such as {@code 2-3}.
+     *
+     * @return the histogram of scoped instances per scope
+     */
+    Map<String, Long> getScopedInstancesPerScope();
+
+    /**
+     * Returns the number of singletons constructed.
+     *
+     * @return the number of singletons created
+     */
+    long getSingletonsCreated();
+
+    /**
+     * Returns the number of resolutions per lifetime.
+     *
+     * @return the resolution counts keyed by lifetime
+     */
+    Map<String, Long> getResolutionCounts();
+
+    /**
+     * Returns the number of resolutions per second per lifetime, as an
+     * exponentially decaying average over about the last minute, so that it
+     * follows the current load rather than the whole life of the provider.
+     *
+     * @return the resolution rates keyed by lifetime
+     */
+    Map<String, Double> getResolutionRates();
+
+    /**
+     * Returns the average construction time of every constructed service.
+     *
+     * @return the average time in milliseconds keyed by service type
+     */
+    Map<String, Double> getAverageConstructionMillis();
+
+    /**
+     * Returns the 99th percentile of the recent construction times of every
+     * constructed service.
+     *
+     * @return the p99 time in milliseconds keyed by service type
+     */
+    Map<String, Double> getP99ConstructionMillis();
+
+    /**
+     * Returns the number of services that failed to be disposed of.
+     *
+     * @return the number of disposal failures
+     */
+    long getDisposalFailures();
+
+    /**
+     * Describes the mapped services, one per line with their lifetime and
+     * dependencies.
+     *
+     * @return the dependency graph
+     */
+    String dumpDependencyGraph();
+
+    /**
+     * Closes every live scope opened at least the given time ago. A stale pooled
+     * scope is returned to the pool, and the lease of its owner fails.
+     *
+     * @param olderThanMillis the minimum age of the scopes to close
+     * @return the number of closed scopes
+     */
+    int closeStaleScopes(long olderThanMillis);
+}
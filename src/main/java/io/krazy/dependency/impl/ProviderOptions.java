@@ -0,0 +1,71 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.CachePolicy;
+import io.krazy.dependency.api.IScopeStorage;
+import io.krazy.dependency.api.IScopeStorageFactory;
+import io.krazy.dependency.api.ScopeMode;
+import io.krazy.dependency.api.exception.ResolutionException;
+import lombok.With;
+
+/**
+ * Options used by {@link DefaultServiceProvider}.
+ *
+ * @param cachePolicy         the policy of the cache holding cached services
+ * @param scopePoolCapacity   the maximum number of closed pooled scopes kept
+ *                            for reuse
+ * @param captureStackTraces  whether a {@link ResolutionException} captures its
+ *                            own stack trace, disabling it makes failing
+ *                            services cheaper while the cause keeps its trace
+ * @param monitoring          whether the provider collects resolution
+ *                            statistics and registers a {@link ProviderMonitorMXBean}
+ *                            when created from a {@link ProviderTemplate}
+ * @param scopeStorageFactory creates the storage of the scoped services of
+ *                            every scope
+ */
+@With
+public record ProviderOptions(
+    CachePolicy cachePolicy,
+    int scopePoolCapacity,
+    boolean captureStackTraces,
+    boolean monitoring,
+    IScopeStorageFactory scopeStorageFactory
+)
+{
+    /**
+     * Constructs a new ProviderOptions.
+     *
+     * @throws IllegalArgumentException if the scope pool capacity is negative
+     */
+    public ProviderOptions
+    {
+        if (scopePoolCapacity < 0)
+        {
+            throw new IllegalArgumentException("scopePoolCapacity must not be negative.");
+        }
+    }
+
+    /**
+     * Creates the default options.
+     *
+     * @return the default provider options
+     */
+    public static ProviderOptions defaults()
+    {
+        return new ProviderOptions(CachePolicy.defaults(), 256, true, false, ProviderOptions::createDefaultStorage);
+    }
+
+    /**
+     * Creates the default storage of a scope: a {@link ConfinedScopeStorage} for
+     * confined scopes and a {@link ConcurrentScopeStorage} otherwise.
+     *
+     * @param slotCount the number of scoped service slots
+     * @param mode      the threading mode of the scope
+     * @return a new storage
+     */
+    public static IScopeStorage createDefaultStorage(int slotCount, ScopeMode mode)
+    {
+        return mode == ScopeMode.CONFINED ?
+            new ConfinedScopeStorage(slotCount) :
+            new ConcurrentScopeStorage(slotCount);
+    }
+}
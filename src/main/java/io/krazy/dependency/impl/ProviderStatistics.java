@@ -0,0 +1,159 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.LifetimeType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolution and construction statistics of a provider, collected only when
+ * {@link ProviderOptions#monitoring()} is enabled.
+ */
+final class ProviderStatistics
+{
+    private static final LifetimeType[] LIFETIMES = LifetimeType.values();
+
+    // Construction times kept per service to compute percentiles.
+    static final int SAMPLE_SIZE = 256;
+
+    // Time over which past resolutions fade out of the rate, like a one-minute load average.
+    static final long RATE_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LongAdder[] resolutions = new LongAdder[LIFETIMES.length];
+    private final ResolutionRate[] rates = new ResolutionRate[LIFETIMES.length];
+    private final LongAdder singletonsCreated = new LongAdder();
+    private final Map<Class<?>, ConstructionTimes> constructionTimes = new ConcurrentHashMap<>();
+
+    ProviderStatistics()
+    {
+        final long startNanos = System.nanoTime();
+
+        for (int i = 0; i < resolutions.length; i++)
+        {
+            resolutions[i] = new LongAdder();
+            rates[i] = new ResolutionRate(startNanos);
+        }
+    }
+
+    /**
+     * Exponentially decaying resolution rate of a lifetime. It is updated from
+     * the resolution count whenever it is read, weighting the time since the
+     * previous read, so resolutions need no extra work.
+     */
+    static final class ResolutionRate
+    {
+        private long lastNanos;
+        private long lastCount;
+        private double perSecond;
+        private boolean isPrimed;
+
+        private ResolutionRate(long startNanos)
+        {
+            this.lastNanos = startNanos;
+        }
+
+        synchronized double update(long count, long nowNanos)
+        {
+            final long elapsed = nowNanos - lastNanos;
+
+            if (elapsed <= 0)
+            {
+                return perSecond;
+            }
+
+            final double current = (count - lastCount) / (elapsed / 1_000_000_000.0);
+            // The first read has no history to decay, it starts from the average so far.
+            final double weight = isPrimed ? 1 - Math.exp(-elapsed / (double) RATE_WINDOW_NANOS) : 1;
+            perSecond += weight * (current - perSecond);
+            isPrimed = true;
+            lastNanos = nowNanos;
+            lastCount = count;
+            return perSecond;
+        }
+    }
+
+    /**
+     * Construction times of a single service: every construction counts toward
+     * the average, the last {@link #SAMPLE_SIZE} ones toward percentiles.
+     */
+    static final class ConstructionTimes
+    {
+        private final long[] samples = new long[SAMPLE_SIZE];
+        private long count;
+        private long totalNanos;
+
+        synchronized void record(long nanos)
+        {
+            samples[(int) (count % SAMPLE_SIZE)] = nanos;
+            count++;
+            totalNanos += nanos;
+        }
+
+        synchronized double getAverageMillis()
+        {
+            return count == 0 ? 0 : totalNanos / (double) count / 1_000_000;
+        }
+
+        synchronized double getPercentileMillis(double percentile)
+        {
+            final int size = (int) Math.min(count, SAMPLE_SIZE);
+
+            if (size == 0)
+            {
+                return 0;
+            }
+
+            final long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            final int rank = (int) Math.ceil(percentile / 100 * size) - 1;
+            return sorted[Math.max(rank, 0)] / 1_000_000.0;
+        }
+    }
+
+    void recordResolution(LifetimeType lifetimeType)
+    {
+        resolutions[lifetimeType.ordinal()].increment();
+    }
+
+    void recordConstruction(Class<?> serviceType, LifetimeType lifetimeType, long nanos)
+    {
+        if (lifetimeType == LifetimeType.SINGLETON)
+        {
+            singletonsCreated.increment();
+        }
+
+        constructionTimes.computeIfAbsent(serviceType, it -> new ConstructionTimes()).record(nanos);
+    }
+
+    long getResolutionCount(LifetimeType lifetimeType)
+    {
+        return resolutions[lifetimeType.ordinal()].sum();
+    }
+
+    /**
+     * Gets the resolutions per second, decaying over {@link #RATE_WINDOW_NANOS}
+     * so that it follows the current load.
+     */
+    double getResolutionRate(LifetimeType lifetimeType)
+    {
+        return getResolutionRate(lifetimeType, System.nanoTime());
+    }
+
+    double getResolutionRate(LifetimeType lifetimeType, long nowNanos)
+    {
+        return rates[lifetimeType.ordinal()].update(getResolutionCount(lifetimeType), nowNanos);
+    }
+
+    long getSingletonsCreated()
+    {
+        return singletonsCreated.sum();
+    }
+
+    Map<Class<?>, ConstructionTimes> getConstructionTimes()
+    {
+        return constructionTimes;
+    }
+}
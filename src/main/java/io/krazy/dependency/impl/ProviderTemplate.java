@@ -0,0 +1,163 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.LifetimeType;
+import io.krazy.dependency.api.MappingResult;
+import io.krazy.dependency.api.ServiceDescriptor;
+import io.krazy.dependency.api.exception.NoSuchServiceException;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The immutable, compiled part of a {@link DefaultServiceProvider}: the mapping
+ * with its injectors and method handles, the provider options and the storage
+ * layout. Any number of isolated providers can be created from one template
+ * without mapping again, and they all share its records.
+ * <p>
+ * Providers created from a lazy mapping also share the records mapped on
+ * first request by any of them.
+ * <p>
+ * Every provider created by {@link #createProvider()} warms up the template's
+ * groups in the background and, when monitoring is enabled, registers its
+ * MBean.
+ */
+public final class ProviderTemplate
+{
+    @Getter
+    private final MappingResult mappingResult;
+
+    @Getter
+    private final ProviderOptions options;
+
+    @Getter
+    private final List<WarmUpGroup> warmUpGroups;
+
+    // Storage slot of every service, -1 for transient services.
+    private final Map<Class<?>, Integer> slotMap;
+    private final int singletonSlotCount;
+    private final int scopedSlotCount;
+    private final int threadSlotCount;
+
+    public ProviderTemplate(MappingResult mappingResult, ProviderOptions options)
+    {
+        this(mappingResult, options, List.of());
+    }
+
+    /**
+     * Constructs a new ProviderTemplate.
+     *
+     * @param mappingResult the mapping of the services
+     * @param options       the options of the created providers
+     * @param warmUpGroups  the groups of singletons warmed up by created providers
+     * @throws NoSuchServiceException   if a warmed up type isn't registered
+     * @throws IllegalArgumentException if a warmed up type isn't a singleton
+     */
+    public ProviderTemplate(MappingResult mappingResult, ProviderOptions options, List<WarmUpGroup> warmUpGroups)
+    {
+        this.mappingResult = mappingResult;
+        this.options = options;
+        this.warmUpGroups = List.copyOf(warmUpGroups);
+
+        for (WarmUpGroup group : this.warmUpGroups)
+        {
+            for (Class<?> type : group.serviceTypes())
+            {
+                final @Nullable ServiceDescriptor descriptor = mappingResult.getDescriptor(type);
+
+                if (descriptor == null)
+                {
+                    throw new NoSuchServiceException(type);
+                }
+
+                if (descriptor.getLifetimeType() != LifetimeType.SINGLETON)
+                {
+                    throw new IllegalArgumentException(String.format(
+                        "Only singletons can be warmed up, but %s of group '%s' is %s.",
+                        type.getName(),
+                        group.name(),
+                        descriptor.getLifetimeType()
+                    ));
+                }
+            }
+        }
+
+        final Map<Class<?>, Integer> slots = new HashMap<>();
+        final Map<ServiceDescriptor, Integer> descriptorSlots = new IdentityHashMap<>();
+        int singletonSlots = 0;
+        int scopedSlots = 0;
+        int threadSlots = 0;
+        int cachedSlots = 0;
+
+        // Aliases share their descriptor, so they share its slot and instances.
+        for (Class<?> type : mappingResult.getServiceTypes())
+        {
+            final ServiceDescriptor descriptor = Objects.requireNonNull(mappingResult.getDescriptor(type));
+            @Nullable Integer slot = descriptorSlots.get(descriptor);
+
+            if (slot == null)
+            {
+                slot = switch (descriptor.getLifetimeType())
+                {
+                    case SINGLETON -> singletonSlots++;
+                    case SCOPED -> scopedSlots++;
+                    case THREAD -> threadSlots++;
+                    case CACHED -> cachedSlots++;
+                    case TRANSIENT -> -1;
+                };
+
+                descriptorSlots.put(descriptor, slot);
+            }
+
+            slots.put(type, slot);
+        }
+
+        this.slotMap = Map.copyOf(slots);
+        this.singletonSlotCount = singletonSlots;
+        this.scopedSlotCount = scopedSlots;
+        this.threadSlotCount = threadSlots;
+    }
+
+    /**
+     * Creates a new provider with its own instance storage and starts warming
+     * up its groups.
+     *
+     * @return a new provider
+     */
+    public DefaultServiceProvider createProvider()
+    {
+        final DefaultServiceProvider provider = new DefaultServiceProvider(this);
+        provider.startMonitoring();
+        provider.startWarmUp();
+        return provider;
+    }
+
+    int getSlot(Class<?> type)
+    {
+        return slotMap.get(type);
+    }
+
+    Map<Class<?>, Integer> getSlotMap()
+    {
+        return slotMap;
+    }
+
+    int getSingletonSlotCount()
+    {
+        return singletonSlotCount;
+    }
+
+    int getScopedSlotCount()
+    {
+        return scopedSlotCount;
+    }
+
+    int getThreadSlotCount()
+    {
+        return threadSlotCount;
+    }
+}
@@ -0,0 +1,185 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.IServiceRequestable;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Progress of the background construction of the warm-up groups of a
+ * provider. Each service is constructed on its own virtual thread, and a
+ * request for a service that is still being constructed waits for that
+ * construction instead of starting another one.
+ */
+public final class WarmUp
+{
+    private static final System.Logger LOGGER = System.getLogger(WarmUp.class.getName());
+
+    private final Map<String, CompletableFuture<Void>> groupCompletions = new LinkedHashMap<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean isCancelled;
+
+    private WarmUp(List<WarmUpGroup> groups)
+    {
+        for (WarmUpGroup group : groups)
+        {
+            groupCompletions.put(group.name(), new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * Starts warming up groups in the background.
+     */
+    static WarmUp start(IServiceRequestable provider, List<WarmUpGroup> groups)
+    {
+        final WarmUp warmUp = new WarmUp(groups);
+        final TreeMap<Integer, List<WarmUpGroup>> levels = new TreeMap<>(Comparator.reverseOrder());
+
+        for (WarmUpGroup group : groups)
+        {
+            levels.computeIfAbsent(group.priority(), it -> new ArrayList<>()).add(group);
+        }
+
+        Thread.ofVirtual().name("krazy-warm-up").start(() -> warmUp.run(provider, levels.values()));
+        return warmUp;
+    }
+
+    private void run(IServiceRequestable provider, Iterable<List<WarmUpGroup>> levels)
+    {
+        try
+        {
+            for (List<WarmUpGroup> level : levels)
+            {
+                final List<CompletableFuture<Void>> levelCompletions = new ArrayList<>(level.size());
+
+                for (WarmUpGroup group : level)
+                {
+                    final CompletableFuture<?>[] services = group.serviceTypes().stream()
+                        .map(type -> CompletableFuture.runAsync(() -> construct(provider, type), executor))
+                        .toArray(CompletableFuture<?>[]::new);
+
+                    final CompletableFuture<Void> groupCompletion = groupCompletions.get(group.name());
+                    CompletableFuture.allOf(services).whenComplete((ignored, err) -> complete(group, groupCompletion, err));
+                    levelCompletions.add(groupCompletion);
+                }
+
+                // Lower priorities start once every group of this level settled.
+                CompletableFuture.allOf(levelCompletions.toArray(CompletableFuture<?>[]::new))
+                    .exceptionally(err -> null)
+                    .join();
+            }
+        }
+        catch (RejectedExecutionException err)
+        {
+            // Cancelled, and cancel settles the groups that didn't start.
+        }
+        finally
+        {
+            executor.shutdown();
+            completion.complete(null);
+        }
+    }
+
+    private void construct(IServiceRequestable provider, Class<?> type)
+    {
+        if (isCancelled)
+        {
+            throw new CancellationException("Warm-up was cancelled.");
+        }
+
+        provider.requestService(type);
+    }
+
+    private static void complete(WarmUpGroup group, CompletableFuture<Void> groupCompletion, @Nullable Throwable err)
+    {
+        if (err == null)
+        {
+            groupCompletion.complete(null);
+            return;
+        }
+
+        final Throwable cause = err.getCause() != null ? err.getCause() : err;
+
+        if (!(cause instanceof CancellationException))
+        {
+            LOGGER.log(System.Logger.Level.WARNING, "Failed to warm up group '" + group.name() + "'.", cause);
+        }
+
+        groupCompletion.completeExceptionally(cause);
+    }
+
+    /**
+     * Stops constructing services that haven't started yet and waits for the
+     * constructions in flight, so that none of them stores a singleton after the
+     * provider disposed of its singletons.
+     */
+    void cancel()
+    {
+        isCancelled = true;
+        executor.close();
+
+        final CancellationException err = new CancellationException("Warm-up was cancelled.");
+
+        for (CompletableFuture<Void> groupCompletion : groupCompletions.values())
+        {
+            groupCompletion.completeExceptionally(err);
+        }
+    }
+
+    /**
+     * Returns a future completed once a group is warmed up, or completed
+     * exceptionally with the first failure of the group.
+     *
+     * @param group the name of the group
+     * @return the completion of the group
+     * @throws NoSuchElementException if no group has this name
+     */
+    public CompletableFuture<Void> getGroupCompletion(String group)
+    {
+        final @Nullable CompletableFuture<Void> groupCompletion = groupCompletions.get(group);
+
+        if (groupCompletion == null)
+        {
+            throw new NoSuchElementException(String.format("No warm-up group named '%s'.", group));
+        }
+
+        return groupCompletion.copy();
+    }
+
+    /**
+     * Checks if every service of a group has been constructed, for example to
+     * report readiness.
+     *
+     * @param group the name of the group
+     * @return true if the group was warmed up successfully
+     * @throws NoSuchElementException if no group has this name
+     */
+    public boolean isReady(String group)
+    {
+        final CompletableFuture<Void> groupCompletion = getGroupCompletion(group);
+        return groupCompletion.isDone() && !groupCompletion.isCompletedExceptionally();
+    }
+
+    /**
+     * Returns a future completed once every group has settled, whether it
+     * succeeded or not.
+     *
+     * @return the completion of the warm-up
+     */
+    public CompletableFuture<Void> getCompletion()
+    {
+        return completion.copy();
+    }
+}
@@ -0,0 +1,23 @@
+package io.krazy.dependency.impl;
+
+import java.util.List;
+
+/**
+ * Singletons constructed in the background once a provider is created. Groups
+ * with a higher priority are warmed up first, groups of equal priority
+ * together.
+ *
+ * @param name         the name of the group
+ * @param priority     the priority of the group, higher runs first
+ * @param serviceTypes the types of the singletons to construct
+ */
+public record WarmUpGroup(String name, int priority, List<Class<?>> serviceTypes)
+{
+    /**
+     * Constructs a new WarmUpGroup.
+     */
+    public WarmUpGroup
+    {
+        serviceTypes = List.copyOf(serviceTypes);
+    }
+}
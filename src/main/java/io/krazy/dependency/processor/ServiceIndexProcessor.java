@@ -0,0 +1,160 @@
+package io.krazy.dependency.processor;
+
+import io.krazy.dependency.api.ServiceIndex;
+import io.krazy.dependency.api.annotation.Service;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypesException;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor that writes every class or record annotated with {@link Service}
+ * to the {@link ServiceIndex} of the compilation output.
+ */
+@SupportedAnnotationTypes("io.krazy.dependency.api.annotation.Service")
+public class ServiceIndexProcessor extends AbstractProcessor
+{
+    private final List<String> entries = new ArrayList<>();
+    private final List<Element> originatingElements = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+    {
+        if (roundEnv.processingOver())
+        {
+            writeIndex();
+            return false;
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(Service.class))
+        {
+            final boolean isClass = element.getKind() == ElementKind.CLASS || element.getKind() == ElementKind.RECORD;
+
+            if (!isClass || element.getModifiers().contains(Modifier.ABSTRACT))
+            {
+                error(element, "@Service can only be applied to concrete classes and records.");
+                continue;
+            }
+
+            final TypeElement implElement = (TypeElement) element;
+            final Service service = implElement.getAnnotation(Service.class);
+            final List<TypeElement> mappingElements = getMappingElements(implElement, service);
+
+            for (TypeElement mappingElement : mappingElements)
+            {
+                final TypeMirror mappingType = processingEnv.getTypeUtils().erasure(mappingElement.asType());
+
+                if (!processingEnv.getTypeUtils().isAssignable(implElement.asType(), mappingType))
+                {
+                    error(element, String.format(
+                        "%s is not assignable to %s.",
+                        implElement.getQualifiedName(),
+                        mappingElement.getQualifiedName()
+                    ));
+                    continue;
+                }
+
+                entries.add(ServiceIndex.formatEntry(
+                    service.lifetime(),
+                    binaryName(mappingElement),
+                    binaryName(implElement)
+                ));
+            }
+
+            originatingElements.add(element);
+        }
+
+        return false;
+    }
+
+    private List<TypeElement> getMappingElements(TypeElement implElement, Service service)
+    {
+        final List<TypeElement> output = new ArrayList<>();
+
+        try
+        {
+            // Always throws during compilation because the classes aren't loaded yet.
+            service.as();
+        }
+        catch (MirroredTypesException err)
+        {
+            for (TypeMirror mirror : err.getTypeMirrors())
+            {
+                output.add((TypeElement) ((DeclaredType) mirror).asElement());
+            }
+        }
+
+        if (output.isEmpty())
+        {
+            output.add(implElement);
+        }
+
+        return output;
+    }
+
+    private void writeIndex()
+    {
+        if (entries.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            final FileObject file = processingEnv.getFiler().createResource(
+                StandardLocation.CLASS_OUTPUT,
+                "",
+                ServiceIndex.RESOURCE_PATH,
+                originatingElements.toArray(Element[]::new)
+            );
+
+            try (Writer writer = file.openWriter())
+            {
+                for (String entry : entries)
+                {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        }
+        catch (IOException err)
+        {
+            processingEnv.getMessager().printMessage(
+                Diagnostic.Kind.ERROR,
+                "Couldn't write service index: " + err.getMessage()
+            );
+        }
+    }
+
+    private String binaryName(TypeElement element)
+    {
+        return processingEnv.getElementUtils().getBinaryName(element).toString();
+    }
+
+    private void error(Element element, String message)
+    {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -4,7 +4,13 @@ module krazy.main {
     exports io.krazy.dependency.api.exception;
     exports io.krazy.dependency.api.injector;
     exports io.krazy.dependency.impl;
+    exports io.krazy.dependency.processor;
+
+    requires java.management;
 
     requires static lombok;
     requires static org.jetbrains.annotations;
-}
\ No newline at end of file
+    requires static java.compiler;
+
+    provides javax.annotation.processing.Processor with io.krazy.dependency.processor.ServiceIndexProcessor;
+}
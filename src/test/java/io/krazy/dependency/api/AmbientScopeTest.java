@@ -0,0 +1,175 @@
+package io.krazy.dependency.api;
+
+import io.krazy.dependency.impl.DefaultServiceConfigurator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AmbientScopeTest
+{
+    @Test
+    void shouldResolveFromBoundScope() throws Exception
+    {
+        IServiceProvider provider = createProvider();
+
+        try (IServiceScope scope = provider.createScope())
+        {
+            TestService service = AmbientScope.call(scope, () -> AmbientScope.requestService(TestService.class));
+
+            assertSame(scope.requestService(TestService.class), service);
+        }
+    }
+
+    @Test
+    void shouldRestoreOuterScope() throws Exception
+    {
+        IServiceProvider provider = createProvider();
+        AtomicReference<IServiceScope> inner = new AtomicReference<>();
+        AtomicReference<IServiceScope> outerAfter = new AtomicReference<>();
+
+        try (IServiceScope outer = provider.createScope(); IServiceScope nested = provider.createScope())
+        {
+            AmbientScope.run(outer, () ->
+            {
+                AmbientScope.run(nested, () -> inner.set(AmbientScope.current()));
+                outerAfter.set(AmbientScope.current());
+            });
+
+            assertSame(nested, inner.get());
+            assertSame(outer, outerAfter.get());
+        }
+
+        assertNull(AmbientScope.current());
+    }
+
+    @Test
+    void shouldFailWithoutBoundScope()
+    {
+        assertThrows(IllegalStateException.class, () -> AmbientScope.requestService(TestService.class));
+    }
+
+    @Test
+    void shouldPropagateTaskFailure() throws Exception
+    {
+        IServiceProvider provider = createProvider();
+
+        try (IServiceScope scope = provider.createScope())
+        {
+            assertThrows(
+                IOException.class,
+                () -> AmbientScope.call(scope, () -> { throw new IOException(); })
+            );
+            assertNull(AmbientScope.current());
+        }
+    }
+
+    @Test
+    void shouldShareScopedInstancesWithStructuredForks() throws Exception
+    {
+        assumeTrue(AmbientScope.isScopedValueCarrier(), "ScopedValue isn't available on this runtime");
+        assumeTrue(hasStructuredTaskScopeClass(), "StructuredTaskScope isn't a class on this runtime");
+
+        IServiceProvider provider = createProvider();
+
+        try (IServiceScope scope = provider.createScope())
+        {
+            List<Object> results = AmbientScope.call(scope, () -> forkAll(4, () ->
+                List.of(AmbientScope.current(), AmbientScope.requestService(TestService.class))
+            ));
+
+            TestService expected = scope.requestService(TestService.class);
+
+            for (Object result : results)
+            {
+                List<?> values = (List<?>) result;
+                assertSame(scope, values.get(0), "Forks should see the ambient scope");
+                assertSame(expected, values.get(1), "Forks should share the scoped instances");
+            }
+        }
+    }
+
+    @Test
+    void shouldRebindInForksWithThreadLocalCarrier() throws Exception
+    {
+        AmbientScope.Carrier carrier = new AmbientScope.ThreadLocalCarrier();
+        IServiceProvider provider = createProvider();
+        AtomicReference<IServiceScope> unbound = new AtomicReference<>();
+        AtomicReference<TestService> rebound = new AtomicReference<>();
+
+        try (IServiceScope scope = provider.createScope(); ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            carrier.run(scope, () ->
+            {
+                try
+                {
+                    unbound.set(executor.submit(carrier::get).get());
+                    executor.submit(() -> carrier.run(scope, () -> rebound.set(scope.requestService(TestService.class))))
+                        .get();
+                }
+                catch (Exception err)
+                {
+                    throw new IllegalStateException(err);
+                }
+            });
+
+            assertNull(unbound.get(), "The thread local binding shouldn't be inherited");
+            assertSame(scope.requestService(TestService.class), rebound.get());
+            assertNull(carrier.get());
+        }
+    }
+
+    private static boolean hasStructuredTaskScopeClass()
+    {
+        try
+        {
+            return !Class.forName("java.util.concurrent.StructuredTaskScope").isInterface();
+        }
+        catch (ClassNotFoundException err)
+        {
+            return false;
+        }
+    }
+
+    // StructuredTaskScope is a preview API on the targeted release, so it is reached reflectively.
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> forkAll(int count, Callable<T> task) throws Exception
+    {
+        Class<?> type = Class.forName("java.util.concurrent.StructuredTaskScope");
+        Method fork = type.getMethod("fork", Callable.class);
+        List<Supplier<T>> subtasks = new ArrayList<>();
+
+        try (AutoCloseable taskScope = (AutoCloseable) type.getConstructor().newInstance())
+        {
+            for (int i = 0; i < count; i++)
+            {
+                subtasks.add((Supplier<T>) fork.invoke(taskScope, task));
+            }
+
+            type.getMethod("join").invoke(taskScope);
+        }
+
+        return subtasks.stream().map(Supplier::get).toList();
+    }
+
+    private static IServiceProvider createProvider() throws Exception
+    {
+        IServiceConfigurator configurator = new DefaultServiceConfigurator();
+        configurator.addScoped(TestService.class, TestService.class);
+        return configurator.buildProvider();
+    }
+
+    public static class TestService
+    {
+    }
+}
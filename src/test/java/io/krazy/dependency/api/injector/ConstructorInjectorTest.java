@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Constructor;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +33,32 @@ class ConstructorInjectorTest
         assertTrue(injector.getExpectedTypes().isEmpty());
     }
 
+    @Test
+    void shouldCreateFactoryHandle() throws Throwable
+    {
+        Constructor<TestClass> constructor = TestClass.class.getDeclaredConstructor(String.class);
+        ConstructorInjector injector = ConstructorInjector.from(constructor);
+
+        Object instance = (Object) injector.getFactoryHandle().invokeExact(new Object[] { "value" });
+        assertInstanceOf(TestClass.class, instance);
+    }
+
+    @Test
+    void shouldBindConstantArguments() throws Throwable
+    {
+        Constructor<TestClass> constructor = TestClass.class.getDeclaredConstructor(String.class, int.class, Object.class);
+        ConstructorInjector injector = ConstructorInjector.from(constructor)
+            .withConstants(Map.of(0, "name", 1, 42));
+
+        assertEquals(List.of(Object.class), injector.getExpectedTypes());
+
+        Object dependency = new Object();
+        TestClass instance = (TestClass) (Object) injector.getFactoryHandle().invokeExact(new Object[] { dependency });
+        assertEquals("name", instance.arg);
+        assertEquals(42, instance.count);
+        assertSame(dependency, instance.dependency);
+    }
+
     @Test
     void shouldReturnCorrectToString() throws NoSuchMethodException, IllegalAccessException
     {
@@ -44,12 +71,24 @@ class ConstructorInjectorTest
 
     static class TestClass
     {
+        String arg;
+        int count;
+        Object dependency;
+
         public TestClass()
         {
         }
 
         public TestClass(String arg)
         {
+            this.arg = arg;
+        }
+
+        public TestClass(String arg, int count, Object dependency)
+        {
+            this.arg = arg;
+            this.count = count;
+            this.dependency = dependency;
         }
     }
 }
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,6 +31,20 @@ class MethodInjectorTest {
         assertTrue(injector.isStatic());
     }
 
+    @Test
+    void shouldBindConstantArgumentsAfterReceiver() throws Throwable {
+        Method method = TestClass.class.getDeclaredMethod("configure", Object.class, long.class);
+        MethodInjector injector = MethodInjector.from(method).withConstants(Map.of(1, 7L));
+
+        assertEquals(List.of(Object.class), injector.getExpectedTypes());
+
+        TestClass instance = new TestClass();
+        Object dependency = new Object();
+        injector.getMethodHandle().invoke(instance, dependency);
+        assertSame(dependency, instance.dependency);
+        assertEquals(7L, instance.value);
+    }
+
     @Test
     void shouldFailForAbstractMethod() throws NoSuchMethodException {
         Method method = AbstractClass.class.getDeclaredMethod("abstractMethod");
@@ -46,9 +61,17 @@ class MethodInjectorTest {
     }
 
     static class TestClass {
+        Object dependency;
+        long value;
+
         void method(String arg) {
         }
 
+        void configure(Object dependency, long value) {
+            this.dependency = dependency;
+            this.value = value;
+        }
+
         static void staticMethod() {
         }
     }
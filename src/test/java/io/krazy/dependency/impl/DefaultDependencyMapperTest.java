@@ -1,16 +1,19 @@
 package io.krazy.dependency.impl;
 
+import io.krazy.dependency.api.DependencyRecord;
 import io.krazy.dependency.api.IServiceConfigurator;
 import io.krazy.dependency.api.IServiceProvider;
 import io.krazy.dependency.api.MappingResult;
 import io.krazy.dependency.api.ServiceDescriptor;
 import io.krazy.dependency.api.annotation.InjectDependency;
+import io.krazy.dependency.api.annotation.Optional;
 import io.krazy.dependency.api.exception.CircularDependencyException;
 import io.krazy.dependency.api.exception.NoSuchServiceException;
 import io.krazy.dependency.api.exception.UnconstructableException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,6 +40,11 @@ public class DefaultDependencyMapperTest {
             return map.containsKey(mappingType);
         }
 
+        @Override
+        public <T> void decorate(Class<T> serviceType, Class<? extends T> decoratorType) {
+            throw new AssertionError("Shouldn't be called!");
+        }
+
         @Override
         public IServiceProvider buildProvider() throws IllegalAccessException, NoSuchServiceException {
             throw new AssertionError("Should be called!");
@@ -72,11 +80,49 @@ public class DefaultDependencyMapperTest {
         }
     }
 
+    public static class CircularC {
+        @InjectDependency
+        public CircularD d;
+    }
+
+    public static class CircularD {
+        @InjectDependency
+        public CircularC c;
+    }
+
+    public static class SelfDependent {
+        public SelfDependent(SelfDependent self) {
+        }
+    }
+
+    public record RecordService(ServiceA a, String name) {
+        public RecordService(ServiceA a) {
+            this(a, "default");
+        }
+    }
+
+    public record ServiceRecord(ServiceA a) {
+    }
+
     public static class PrivateService {
         private PrivateService() {
         }
     }
 
+    public static class OptionalConsumer {
+        final ServiceA a;
+        final ServiceB b;
+
+        @InjectDependency
+        @Optional
+        public ServiceC c;
+
+        public OptionalConsumer(ServiceA a, @Optional ServiceB b) {
+            this.a = a;
+            this.b = b;
+        }
+    }
+
     @Test
     public void testSimpleMapping() throws Exception {
         MockConfigurator config = new MockConfigurator();
@@ -125,6 +171,39 @@ public class DefaultDependencyMapperTest {
         Assertions.assertTrue(result.hasRecord(ServiceD.class));
     }
 
+    @Test
+    public void testOptionalDependencies() throws Exception {
+        MockConfigurator config = new MockConfigurator();
+        config.add(ServiceA.class);
+        config.add(OptionalConsumer.class);
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(true, config);
+        MappingResult result = mapper.computeMapping();
+
+        Assertions.assertTrue(result.getRecord(OptionalConsumer.class).fieldInjectors().isEmpty());
+
+        OptionalConsumer consumer = new DefaultServiceProvider(result).requestService(OptionalConsumer.class);
+        Assertions.assertNotNull(consumer.a);
+        Assertions.assertNull(consumer.b);
+        Assertions.assertNull(consumer.c);
+    }
+
+    @Test
+    public void testOptionalDependenciesPresent() throws Exception {
+        MockConfigurator config = new MockConfigurator();
+        config.add(ServiceA.class);
+        config.add(ServiceB.class);
+        config.add(ServiceC.class);
+        config.add(OptionalConsumer.class);
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(true, config);
+        MappingResult result = mapper.computeMapping();
+
+        OptionalConsumer consumer = new DefaultServiceProvider(result).requestService(OptionalConsumer.class);
+        Assertions.assertNotNull(consumer.b);
+        Assertions.assertNotNull(consumer.c);
+    }
+
     @Test
     public void testCircularDependency() {
         MockConfigurator config = new MockConfigurator();
@@ -136,6 +215,51 @@ public class DefaultDependencyMapperTest {
         Assertions.assertThrows(CircularDependencyException.class, mapper::computeMapping);
     }
 
+    @Test
+    public void testCircularDependencyTrace() {
+        MockConfigurator config = new MockConfigurator();
+        config.add(CircularA.class);
+        config.add(CircularB.class);
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(true, config);
+        CircularDependencyException err = Assertions.assertThrows(CircularDependencyException.class, mapper::computeMapping);
+
+        Assertions.assertEquals(2, err.getInjectorTrace().size());
+        Assertions.assertEquals(0, err.getSuppressed().length, "One cycle should be reported once");
+    }
+
+    @Test
+    public void testSelfDependency() {
+        MockConfigurator config = new MockConfigurator();
+        config.add(SelfDependent.class);
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(true, config);
+        CircularDependencyException err = Assertions.assertThrows(CircularDependencyException.class, mapper::computeMapping);
+
+        Assertions.assertEquals(1, err.getInjectorTrace().size());
+    }
+
+    @Test
+    public void testReportsEveryProblem() {
+        MockConfigurator config = new MockConfigurator();
+        config.add(CircularA.class);
+        config.add(CircularB.class);
+        config.add(CircularC.class);
+        config.add(CircularD.class);
+        config.add(ServiceB.class);
+        // missing ServiceA
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(true, config);
+        NoSuchServiceException err = Assertions.assertThrows(NoSuchServiceException.class, mapper::computeMapping);
+
+        long cycles = Arrays.stream(err.getSuppressed())
+            .filter(CircularDependencyException.class::isInstance)
+            .count();
+
+        Assertions.assertEquals(2, cycles);
+        Assertions.assertEquals(2, err.getSuppressed().length);
+    }
+
     @Test
     public void testMissingService() {
         MockConfigurator config = new MockConfigurator();
@@ -147,6 +271,75 @@ public class DefaultDependencyMapperTest {
         Assertions.assertThrows(NoSuchServiceException.class, mapper::computeMapping);
     }
 
+    @Test
+    public void testLazyMappingMapsSubgraphOnDemand() throws Exception {
+        MockConfigurator config = new MockConfigurator();
+        config.add(ServiceA.class);
+        config.add(ServiceB.class);
+        config.add(ServiceC.class);
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(true, config);
+        MappingResult result = mapper.computeLazyMapping();
+
+        Assertions.assertTrue(result.isLazy());
+        Assertions.assertTrue(result.hasRecord(ServiceC.class));
+        Assertions.assertEquals(0, result.getRecordCount());
+
+        Assertions.assertNotNull(result.getRecord(ServiceB.class));
+        Assertions.assertTrue(result.isRecordMapped(ServiceA.class));
+        Assertions.assertTrue(result.isRecordMapped(ServiceB.class));
+        Assertions.assertFalse(result.isRecordMapped(ServiceC.class));
+
+        DependencyRecord recordA = result.getRecord(ServiceA.class);
+        Assertions.assertNotNull(result.getRecord(ServiceC.class));
+        Assertions.assertSame(recordA, result.getRecord(ServiceA.class), "Published records should not be remapped");
+        Assertions.assertEquals(3, result.getRecordCount());
+    }
+
+    @Test
+    public void testLazyMappingValidatesOnRequest() throws Exception {
+        MockConfigurator config = new MockConfigurator();
+        config.add(ServiceB.class);
+        config.add(CircularA.class);
+        config.add(CircularB.class);
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(true, config);
+        MappingResult result = mapper.computeLazyMapping();
+
+        Assertions.assertThrows(NoSuchServiceException.class, () -> result.getRecord(ServiceB.class));
+        Assertions.assertThrows(CircularDependencyException.class, () -> result.getRecord(CircularA.class));
+        Assertions.assertEquals(0, result.getRecordCount());
+    }
+
+    @Test
+    public void testRecordUsesCanonicalConstructor() throws Exception {
+        MockConfigurator config = new MockConfigurator();
+        config.add(ServiceA.class);
+        config.add(ServiceRecord.class);
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(false, config);
+        DependencyRecord record = mapper.computeMapping().getRecord(ServiceRecord.class);
+
+        Assertions.assertEquals(
+            ServiceRecord.class.getDeclaredConstructor(ServiceA.class),
+            record.constructorInjector().getMember()
+        );
+        Assertions.assertTrue(record.fieldInjectors().isEmpty());
+        Assertions.assertTrue(record.methodInjectors().isEmpty());
+    }
+
+    @Test
+    public void testRecordIgnoresNonCanonicalConstructor() {
+        MockConfigurator config = new MockConfigurator();
+        config.add(ServiceA.class);
+        config.add(RecordService.class);
+
+        DefaultDependencyMapper mapper = new DefaultDependencyMapper(true, config);
+
+        // The canonical constructor needs a String, which isn't registered.
+        Assertions.assertThrows(NoSuchServiceException.class, mapper::computeMapping);
+    }
+
     @Test
     public void testUnconstructablePrivate() {
         MockConfigurator config = new MockConfigurator();
@@ -1,13 +1,46 @@
 package io.krazy.dependency.impl;
 
+import io.krazy.dependency.api.BuildReport;
 import io.krazy.dependency.api.IServiceProvider;
+import io.krazy.dependency.api.IServiceModule;
+import io.krazy.dependency.api.IServiceScope;
 import io.krazy.dependency.api.LifetimeType;
+import io.krazy.dependency.api.ResolutionPlan;
 import io.krazy.dependency.api.ServiceDescriptor;
+import io.krazy.dependency.api.ServiceIndex;
+import io.krazy.dependency.api.annotation.Config;
+import io.krazy.dependency.api.annotation.InjectDependency;
+import io.krazy.dependency.api.annotation.OnDispose;
+import io.krazy.dependency.api.annotation.OnInitialize;
+import io.krazy.dependency.api.exception.AmbiguousRegisterException;
+import io.krazy.dependency.api.exception.CaptiveDependencyException;
+import io.krazy.dependency.api.exception.ConfigurationException;
 import io.krazy.dependency.api.exception.NoSuchServiceException;
+import io.krazy.dependency.api.exception.ResolutionException;
+import io.krazy.dependency.api.exception.UnconstructableException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,6 +79,77 @@ public class DefaultServiceConfiguratorTest {
         assertNotNull(provider.requestService(TestService.class));
     }
 
+    @Test
+    void shouldBuildLazyProvider() throws Exception {
+        configurator.setLazyMapping(true);
+        configurator.addSingleton(TestService.class, TestService.class);
+        IServiceProvider provider = configurator.buildProvider();
+
+        assertTrue(provider.hasService(TestService.class));
+        assertSame(provider.requestService(TestService.class), provider.requestService(TestService.class));
+    }
+
+    @Test
+    void shouldCreateIsolatedProvidersFromTemplate() throws Exception {
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addTransient(TestRecord.class, TestRecord.class);
+        ProviderTemplate template = configurator.compileTemplate();
+
+        DefaultServiceProvider first = template.createProvider();
+        DefaultServiceProvider second = template.createProvider();
+
+        assertSame(first.getMappingResult(), second.getMappingResult());
+        assertSame(first.requestService(TestService.class), first.requestService(TestService.class));
+        assertNotSame(first.requestService(TestService.class), second.requestService(TestService.class));
+        assertSame(second.requestService(TestService.class), second.requestService(TestRecord.class).service());
+    }
+
+    @Test
+    void shouldShareInstanceBetweenAliases() throws Exception {
+        configurator.addSingleton(Store.class, Store.class);
+        configurator.addAlias(IReader.class, Store.class);
+        configurator.addAlias(IWriter.class, Store.class);
+        DefaultServiceProvider provider = (DefaultServiceProvider) configurator.buildProvider();
+
+        Store store = provider.requestService(Store.class);
+        assertSame(store, provider.requestService(IReader.class));
+        assertSame(store, provider.requestService(IWriter.class));
+        assertSame(
+            provider.getMappingResult().getRecord(IReader.class),
+            provider.getMappingResult().getRecord(IWriter.class)
+        );
+    }
+
+    @Test
+    void shouldShareInstanceBetweenAliasesLazily() throws Exception {
+        configurator.setLazyMapping(true);
+        configurator.addScoped(IReader.class, Store.class);
+        configurator.addAlias(IWriter.class, IReader.class);
+        IServiceProvider provider = configurator.buildProvider();
+
+        try (IServiceScope scope = provider.createScope()) {
+            assertSame(scope.requestService(IWriter.class), scope.requestService(IReader.class));
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidAlias() {
+        configurator.addSingleton(TestService.class, TestService.class);
+
+        assertThrows(NoSuchServiceException.class, () -> configurator.addAlias(IReader.class, Store.class));
+        assertThrows(IllegalArgumentException.class, () -> configurator.addAlias(IReader.class, TestService.class));
+    }
+
+    @Test
+    void shouldBuildRecordService() throws Exception {
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addTransient(TestRecord.class, TestRecord.class);
+        IServiceProvider provider = configurator.buildProvider();
+
+        TestRecord record = provider.requestService(TestRecord.class);
+        assertSame(provider.requestService(TestService.class), record.service());
+    }
+
     @Test
     void shouldAddSingletonHelper() {
         configurator.addSingleton(TestService.class, TestService.class);
@@ -70,6 +174,22 @@ public class DefaultServiceConfiguratorTest {
         assertEquals(TestService.class, descriptor.getImplementationType());
     }
 
+    @Test
+    void shouldAddThreadHelper() {
+        configurator.addThread(TestService.class, TestService.class);
+        ServiceDescriptor descriptor = configurator.getDescriptorMap().get(TestService.class);
+        assertEquals(LifetimeType.THREAD, descriptor.getLifetimeType());
+        assertEquals(TestService.class, descriptor.getImplementationType());
+    }
+
+    @Test
+    void shouldAddCachedHelper() {
+        configurator.addCached(TestService.class, TestService.class);
+        ServiceDescriptor descriptor = configurator.getDescriptorMap().get(TestService.class);
+        assertEquals(LifetimeType.CACHED, descriptor.getLifetimeType());
+        assertEquals(TestService.class, descriptor.getImplementationType());
+    }
+
     @Test
     void shouldAddSingletonInstanceHelper() {
         TestService instance = new TestService();
@@ -80,8 +200,640 @@ public class DefaultServiceConfiguratorTest {
         assertEquals(instance, descriptor.getDefaultInstance());
     }
 
+    @Test
+    void shouldAddIndexedServices(@TempDir Path tempDir) throws Exception {
+        Path index = tempDir.resolve(ServiceIndex.RESOURCE_PATH);
+        Files.createDirectories(index.getParent());
+        Files.writeString(index, String.join("\n",
+            "# generated",
+            ServiceIndex.formatEntry(LifetimeType.SCOPED, TestService.class.getName(), TestService.class.getName()),
+            ""
+        ));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { tempDir.toUri().toURL() }, getClass().getClassLoader())) {
+            assertEquals(1, configurator.addIndexedServices(loader));
+        }
+
+        ServiceDescriptor descriptor = configurator.getDescriptorMap().get(TestService.class);
+        assertEquals(LifetimeType.SCOPED, descriptor.getLifetimeType());
+        assertEquals(TestService.class, descriptor.getImplementationType());
+    }
+
+    @Test
+    void shouldRecordBuildReport() throws Exception {
+        assertNull(configurator.getLastBuildReport());
+
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addTransient(TestRecord.class, TestRecord.class);
+        configurator.buildProvider();
+
+        BuildReport report = configurator.getLastBuildReport();
+        assertNotNull(report);
+        assertEquals(2, report.getServiceTimings().size());
+        assertEquals(1, report.getSlowestServices(1).size());
+        assertTrue(report.getPhaseTime(BuildReport.Phase.HANDLE_CREATION).toNanos() > 0);
+
+        BuildReport.ServiceTiming slowest = report.getSlowestServices(1).get(0);
+        assertTrue(slowest.getTotalTime().compareTo(report.getServiceTimings().get(1).getTotalTime()) >= 0);
+        assertTrue(report.getTotalTime().compareTo(slowest.getTotalTime()) >= 0);
+    }
+
+    @Test
+    void shouldMarkLazyBuildReport() throws Exception {
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.buildProvider();
+        assertFalse(configurator.getLastBuildReport().isLazy());
+
+        configurator.setLazyMapping(true);
+        configurator.buildProvider();
+
+        BuildReport report = configurator.getLastBuildReport();
+        assertTrue(report.isLazy());
+        assertTrue(report.getServiceTimings().isEmpty());
+        assertTrue(report.toString().contains("services mapped on first request"));
+    }
+
+    @Test
+    void shouldInjectConfigurationValues() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("worker.name", "indexer");
+        properties.setProperty("worker.threads", "4");
+        properties.setProperty("worker.timeout", "30s");
+        properties.setProperty("worker.retry.attempts", "3");
+        properties.setProperty("worker.retry.backoff", "PT0.5S");
+        properties.setProperty("worker.enabled", "true");
+
+        configurator.addConfiguration(properties);
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addTransient(ConfiguredService.class, ConfiguredService.class);
+        IServiceProvider provider = configurator.buildProvider();
+
+        ConfiguredService service = provider.requestService(ConfiguredService.class);
+        assertEquals("indexer", service.name);
+        assertEquals(4, service.threads);
+        assertSame(provider.requestService(TestService.class), service.service);
+        assertEquals(Duration.ofSeconds(30), service.timeout);
+        assertEquals(new RetryPolicy(3, Duration.ofMillis(500)), service.retry);
+        assertTrue(service.enabled);
+    }
+
+    @Test
+    void shouldInjectConfigurationIntoRecord() throws Exception {
+        configurator.addConfiguration(Map.of("record.label", "primary"));
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addTransient(ConfiguredRecord.class, ConfiguredRecord.class);
+        IServiceProvider provider = configurator.buildProvider();
+
+        assertEquals("primary", provider.requestService(ConfiguredRecord.class).label());
+    }
+
+    @Test
+    void shouldFailForMissingConfiguration() {
+        configurator.addConfiguration(Map.of("worker.threads", "four"));
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addTransient(ConfiguredService.class, ConfiguredService.class);
+
+        ConfigurationException err = assertThrows(ConfigurationException.class, configurator::buildProvider);
+        assertEquals("worker.name", err.getKey());
+        assertTrue(err.getSuppressed().length > 0);
+    }
+
+    @Test
+    void shouldRejectCaptiveDependency() {
+        configurator.addScoped(TestService.class, TestService.class);
+        configurator.addSingleton(TestRecord.class, TestRecord.class);
+
+        CaptiveDependencyException err = assertThrows(CaptiveDependencyException.class, configurator::buildProvider);
+        assertEquals(TestRecord.class, err.getConsumerDescriptor().getImplementationType());
+        assertEquals(TestService.class, err.getDependencyDescriptor().getImplementationType());
+    }
+
+    @Test
+    void shouldRejectCaptiveDependencyThroughTransient() {
+        configurator.addScoped(TestService.class, TestService.class);
+        configurator.addTransient(TestRecord.class, TestRecord.class);
+        configurator.addSingleton(WrapperRecord.class, WrapperRecord.class);
+
+        assertThrows(CaptiveDependencyException.class, configurator::buildProvider);
+    }
+
+    @Test
+    void shouldPlanEffectiveLifetime() throws Exception {
+        configurator.addScoped(TestService.class, TestService.class);
+        configurator.addTransient(TestRecord.class, TestRecord.class);
+
+        ResolutionPlan plan = configurator.compileTemplate().getMappingResult().getRecord(TestRecord.class).plan();
+        assertNotNull(plan);
+        assertEquals(LifetimeType.SCOPED, plan.effectiveLifetime());
+        assertTrue(plan.needsScope());
+        assertEquals(
+            new ResolutionPlan.Dependency(TestService.class, ResolutionPlan.Resolution.PER_SCOPE),
+            plan.constructorDependencies().get(0)
+        );
+    }
+
+    @Test
+    void shouldResolveFieldsWithinScope() throws Exception {
+        configurator.addScoped(TestService.class, TestService.class);
+        configurator.addScoped(FieldConsumer.class, FieldConsumer.class);
+
+        try (IServiceProvider provider = configurator.buildProvider(); IServiceScope scope = provider.createScope()) {
+            FieldConsumer consumer = scope.requestService(FieldConsumer.class);
+            assertSame(scope.requestService(TestService.class), consumer.service);
+            assertNotSame(provider.requestService(TestService.class), consumer.service);
+        }
+    }
+
+    @Test
+    void shouldRegisterModulesConcurrently() throws Exception {
+        IServiceModule core = it -> it.addSingleton(TestService.class, TestService.class);
+        IServiceModule records = it -> {
+            it.addTransient(TestRecord.class, TestRecord.class);
+            it.addTransient(WrapperRecord.class, WrapperRecord.class);
+        };
+        IServiceModule storage = it -> {
+            it.addScoped(Store.class, Store.class);
+            it.addAlias(IReader.class, Store.class);
+        };
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[] {
+                executor.submit(() -> register(start, core, conflicts)),
+                executor.submit(() -> register(start, core, conflicts)),
+                executor.submit(() -> register(start, records, conflicts)),
+                executor.submit(() -> register(start, storage, conflicts))
+            };
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, conflicts.get());
+        assertSame(core, configurator.getModule(TestService.class));
+        assertSame(storage, configurator.getModule(IReader.class));
+
+        try (IServiceProvider provider = configurator.buildProvider()) {
+            WrapperRecord wrapper = provider.requestService(WrapperRecord.class);
+            assertSame(provider.requestService(TestService.class), wrapper.record().service());
+            assertSame(provider.requestService(Store.class), provider.requestService(IReader.class));
+        }
+    }
+
+    @Test
+    void shouldRollBackFailedModule() throws Exception {
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addSingleton(IRepository.class, Repository.class);
+
+        IServiceModule module = it -> {
+            it.addTransient(TestRecord.class, TestRecord.class);
+            it.addModule(nested -> nested.addTransient(WrapperRecord.class, WrapperRecord.class));
+            it.decorate(IRepository.class, CachingRepository.class);
+            it.addSingleton(TestService.class, TestService.class);
+        };
+
+        assertThrows(AmbiguousRegisterException.class, () -> configurator.addModule(module));
+        assertFalse(configurator.hasDescriptor(TestRecord.class));
+        assertFalse(configurator.hasDescriptor(WrapperRecord.class));
+        assertNull(configurator.getModule(TestRecord.class));
+        assertNull(configurator.getModule(TestService.class));
+        assertEquals(Repository.class, configurator.getDescriptorMap().get(IRepository.class).getImplementationType());
+
+        configurator.addModule(it -> it.addTransient(TestRecord.class, TestRecord.class));
+
+        try (IServiceProvider provider = configurator.buildProvider()) {
+            assertInstanceOf(Repository.class, provider.requestService(IRepository.class));
+            assertSame(provider.requestService(TestService.class), provider.requestService(TestRecord.class).service());
+        }
+    }
+
+    @Test
+    void shouldValidateEdgesAcrossModules() {
+        configurator.addModule(it -> it.addTransient(TestRecord.class, TestRecord.class));
+        configurator.addModule(it -> it.addTransient(WrapperRecord.class, WrapperRecord.class));
+
+        NoSuchServiceException err = assertThrows(NoSuchServiceException.class, configurator::buildProvider);
+        assertTrue(err.getMessage().contains(TestService.class.getName()));
+    }
+
+    @Test
+    void shouldOnlyInjectAnnotatedMethods() throws Exception {
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addTransient(MethodConsumer.class, MethodConsumer.class);
+
+        try (IServiceProvider provider = configurator.buildProvider()) {
+            MethodConsumer consumer = provider.requestService(MethodConsumer.class);
+            assertSame(provider.requestService(TestService.class), consumer.injected);
+            assertNull(consumer.assigned);
+        }
+    }
+
+    @Test
+    void shouldOverlapAsyncInitialization() throws Exception {
+        SlowInit.started = new CountDownLatch(2);
+        configurator.addSingleton(SlowCache.class, SlowCache.class);
+        configurator.addSingleton(SlowConnection.class, SlowConnection.class);
+        configurator.addTransient(SlowConsumer.class, SlowConsumer.class);
+
+        try (IServiceProvider provider = configurator.buildProvider()) {
+            SlowConsumer consumer = provider.requestService(SlowConsumer.class);
+
+            assertTrue(consumer.cacheReady && consumer.connectionReady, "Dependencies should be ready first");
+            assertTrue(consumer.cache.overlapped && consumer.connection.overlapped, "Initializations should overlap");
+            assertTrue(provider.requestService(SlowCache.class).ready);
+        }
+    }
+
+    @Test
+    void shouldReportFailedInitialization() throws Exception {
+        configurator.addSingleton(FailingInit.class, FailingInit.class);
+
+        try (IServiceProvider provider = configurator.buildProvider()) {
+            ResolutionException err = assertThrows(ResolutionException.class, () -> provider.requestService(FailingInit.class));
+            assertInstanceOf(IllegalStateException.class, err.getCause());
+            assertThrows(ResolutionException.class, () -> provider.requestService(FailingInit.class));
+        }
+    }
+
+    @Test
+    void shouldReportFailedTransientInitializationOnEveryRequest() throws Exception {
+        configurator.addTransient(FailingInit.class, FailingInit.class);
+
+        try (IServiceProvider provider = configurator.buildProvider()) {
+            for (int i = 0; i < 3; i++) {
+                ResolutionException err = assertThrows(ResolutionException.class, () -> provider.requestService(FailingInit.class));
+                assertInstanceOf(IllegalStateException.class, err.getCause());
+            }
+        }
+    }
+
+    @Test
+    void shouldDisposeBeforeClose() throws Exception {
+        configurator.addScoped(DisposableService.class, DisposableService.class);
+
+        IServiceProvider provider = configurator.buildProvider();
+        DisposableService service;
+        try (IServiceScope scope = provider.createScope()) {
+            service = scope.requestService(DisposableService.class);
+            assertEquals(List.of(), service.events);
+        }
+
+        assertEquals(List.of("dispose", "close"), service.events);
+        provider.close();
+    }
+
+    @Test
+    void shouldRejectInvalidLifecycleHook() {
+        configurator.addSingleton(TestService.class, TestService.class);
+        configurator.addSingleton(InvalidHook.class, InvalidHook.class);
+
+        UnconstructableException err = assertThrows(UnconstructableException.class, configurator::buildProvider);
+        assertEquals(UnconstructableException.FailureType.INVALID_LIFECYCLE_HOOK, err.getFailureType());
+    }
+
+    @Test
+    void shouldWarmUpGroupsByPriority() throws Exception {
+        SlowIndex.release = new CountDownLatch(1);
+        SlowIndex.constructions.set(0);
+        WarmUpOrder.events.clear();
+        configurator.addSingleton(SlowIndex.class, SlowIndex.class);
+        configurator.addSingleton(WarmUpOrder.class, WarmUpOrder.class);
+        configurator.addWarmUp("search", 10, SlowIndex.class);
+        configurator.addWarmUp("reports", 1, WarmUpOrder.class);
+
+        try (DefaultServiceProvider provider = (DefaultServiceProvider) configurator.buildProvider()) {
+            WarmUp warmUp = provider.getWarmUp();
+            assertNotNull(warmUp);
+            assertFalse(warmUp.isReady("search"));
+
+            CompletableFuture<SlowIndex> request = CompletableFuture.supplyAsync(() -> provider.requestService(SlowIndex.class));
+            SlowIndex.release.countDown();
+
+            warmUp.getCompletion().get(5, TimeUnit.SECONDS);
+            assertTrue(warmUp.isReady("search"));
+            assertTrue(warmUp.isReady("reports"));
+            assertSame(provider.requestService(SlowIndex.class), request.get(5, TimeUnit.SECONDS));
+            assertEquals(1, SlowIndex.constructions.get(), "Requests should join the warm-up construction");
+            assertEquals(List.of("index", "order"), WarmUpOrder.events);
+        }
+    }
+
+    @Test
+    void shouldAwaitWarmUpBeforeDisposingSingletons() throws Exception {
+        SlowDisposable.started = new CountDownLatch(1);
+        SlowDisposable.release = new CountDownLatch(1);
+        configurator.addSingleton(SlowDisposable.class, SlowDisposable.class);
+        configurator.addWarmUp("slow", 0, SlowDisposable.class);
+
+        IServiceProvider provider = configurator.buildProvider();
+        assertTrue(SlowDisposable.started.await(5, TimeUnit.SECONDS));
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<?> closing = executor.submit(() -> {
+                provider.close();
+                return null;
+            });
+
+            assertThrows(TimeoutException.class, () -> closing.get(100, TimeUnit.MILLISECONDS));
+            SlowDisposable.release.countDown();
+            closing.get(5, TimeUnit.SECONDS);
+        }
+
+        assertTrue(SlowDisposable.instance.closed, "A singleton warmed up while closing should be disposed of");
+    }
+
+    @Test
+    void shouldRejectWarmUpOfScopedService() {
+        configurator.addScoped(TestService.class, TestService.class);
+        configurator.addWarmUp("scoped", 0, TestService.class);
+
+        assertThrows(IllegalArgumentException.class, configurator::buildProvider);
+    }
+
+    @Test
+    void shouldDecorateService() throws Exception {
+        for (boolean lazy : List.of(false, true)) {
+            configurator = new DefaultServiceConfigurator(true);
+            configurator.setLazyMapping(lazy);
+            configurator.addSingleton(TestService.class, TestService.class);
+            configurator.addSingleton(IRepository.class, Repository.class);
+            configurator.decorate(IRepository.class, CachingRepository.class);
+            configurator.decorate(IRepository.class, CountingRepository.class);
+
+            IServiceProvider provider = configurator.buildProvider();
+            IRepository repository = provider.requestService(IRepository.class);
+
+            CountingRepository counting = assertInstanceOf(CountingRepository.class, repository);
+            CachingRepository caching = assertInstanceOf(CachingRepository.class, counting.inner);
+            assertInstanceOf(Repository.class, caching.inner);
+            assertSame(provider.requestService(TestService.class), caching.service);
+            assertSame(repository, provider.requestService(IRepository.class));
+            assertEquals("value", repository.find("key"));
+            assertEquals(1, counting.calls.get());
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidDecorator() {
+        assertThrows(NoSuchServiceException.class, () -> configurator.decorate(IRepository.class, CachingRepository.class));
+
+        configurator.addSingleton(IReader.class, Store.class);
+        configurator.addAlias(IWriter.class, IReader.class);
+
+        assertThrows(IllegalArgumentException.class, () -> configurator.decorate(IReader.class, LoggingReader.class));
+        assertInstanceOf(Store.class, assertDoesNotThrow(configurator::buildProvider).requestService(IWriter.class));
+    }
+
+    @Test
+    void shouldRejectCaptiveDecorator() {
+        configurator.addScoped(TestService.class, TestService.class);
+        configurator.addSingleton(IRepository.class, Repository.class);
+        configurator.decorate(IRepository.class, CachingRepository.class);
+
+        CaptiveDependencyException err = assertThrows(CaptiveDependencyException.class, configurator::buildProvider);
+        assertEquals(CachingRepository.class, err.getConsumerDescriptor().getImplementationType());
+    }
+
+    private void register(CountDownLatch start, IServiceModule module, AtomicInteger conflicts) {
+        try {
+            start.await();
+            configurator.addModule(module);
+        } catch (AmbiguousRegisterException err) {
+            conflicts.incrementAndGet();
+        } catch (InterruptedException err) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public record TestRecord(TestService service) {
+    }
+
+    public record WrapperRecord(TestRecord record) {
+    }
+
+    public static class FieldConsumer {
+        @InjectDependency
+        public TestService service;
+    }
+
+    public interface IReader {
+    }
+
+    public interface IWriter {
+    }
+
+    public static class Store implements IReader, IWriter {
+    }
+
+    public interface IRepository {
+        String find(String key);
+    }
+
+    public static class Repository implements IRepository {
+        @Override
+        public String find(String key) {
+            return "value";
+        }
+    }
+
+    public static class CachingRepository implements IRepository {
+        final IRepository inner;
+        final TestService service;
+        final Map<String, String> cache = new ConcurrentHashMap<>();
+
+        public CachingRepository(IRepository inner, TestService service) {
+            this.inner = inner;
+            this.service = service;
+        }
+
+        @Override
+        public String find(String key) {
+            return cache.computeIfAbsent(key, inner::find);
+        }
+    }
+
+    public static class CountingRepository implements IRepository {
+        final IRepository inner;
+        final AtomicInteger calls = new AtomicInteger();
+
+        public CountingRepository(IRepository inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public String find(String key) {
+            calls.incrementAndGet();
+            return inner.find(key);
+        }
+    }
+
+    public static class LoggingReader implements IReader {
+        public LoggingReader(IReader inner) {
+        }
+    }
+
+    public record RetryPolicy(int attempts, Duration backoff) {
+    }
+
+    public record ConfiguredRecord(TestService service, @Config("record.label") String label) {
+    }
+
+    public static class MethodConsumer {
+        TestService injected;
+        TestService assigned;
+
+        @InjectDependency
+        public void inject(TestService service) {
+            this.injected = service;
+        }
+
+        public void assign(TestService service) {
+            this.assigned = service;
+        }
+    }
+
+    public static class ConfiguredService {
+        final String name;
+        final int threads;
+        final TestService service;
+
+        @Config("worker.timeout")
+        private Duration timeout;
+
+        RetryPolicy retry;
+        boolean enabled;
+
+        public ConfiguredService(@Config("worker.name") String name, TestService service, @Config("worker.threads") int threads) {
+            this.name = name;
+            this.service = service;
+            this.threads = threads;
+        }
+
+        public void setRetry(@Config("worker.retry") RetryPolicy retry) {
+            this.retry = retry;
+        }
+
+        @Config("worker.enabled")
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
     public static class TestService {
         public TestService() {
         }
     }
+
+    public static class SlowIndex {
+        static CountDownLatch release;
+        static final AtomicInteger constructions = new AtomicInteger();
+
+        public SlowIndex() throws InterruptedException {
+            constructions.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            WarmUpOrder.events.add("index");
+        }
+    }
+
+    public static class SlowDisposable implements AutoCloseable {
+        static CountDownLatch started;
+        static CountDownLatch release;
+        static volatile SlowDisposable instance;
+
+        volatile boolean closed;
+
+        public SlowDisposable() throws InterruptedException {
+            instance = this;
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    public static class WarmUpOrder {
+        static final List<String> events = new CopyOnWriteArrayList<>();
+
+        public WarmUpOrder() {
+            events.add("order");
+        }
+    }
+
+    public abstract static class SlowInit {
+        static CountDownLatch started;
+
+        volatile boolean ready;
+        volatile boolean overlapped;
+
+        @OnInitialize
+        public CompletableFuture<Void> initialize() {
+            return CompletableFuture.runAsync(() -> {
+                started.countDown();
+
+                try {
+                    overlapped = started.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException err) {
+                    Thread.currentThread().interrupt();
+                }
+
+                ready = true;
+            });
+        }
+    }
+
+    public static class SlowCache extends SlowInit {
+    }
+
+    public static class SlowConnection extends SlowInit {
+    }
+
+    public static class SlowConsumer {
+        final SlowCache cache;
+        final SlowConnection connection;
+        final boolean cacheReady;
+        final boolean connectionReady;
+
+        public SlowConsumer(SlowCache cache, SlowConnection connection) {
+            this.cache = cache;
+            this.connection = connection;
+            this.cacheReady = cache.ready;
+            this.connectionReady = connection.ready;
+        }
+    }
+
+    public static class FailingInit {
+        @OnInitialize
+        public CompletableFuture<Void> initialize() {
+            return CompletableFuture.failedFuture(new IllegalStateException("handshake failed"));
+        }
+    }
+
+    public static class DisposableService implements AutoCloseable {
+        final List<String> events = new ArrayList<>();
+
+        @OnDispose
+        public void dispose() {
+            events.add("dispose");
+        }
+
+        @Override
+        public void close() {
+            events.add("close");
+        }
+    }
+
+    public static class InvalidHook {
+        @OnInitialize
+        public void initialize(TestService service) {
+        }
+    }
 }
@@ -2,18 +2,25 @@ package io.krazy.dependency.impl;
 
 import io.krazy.dependency.api.*;
 import io.krazy.dependency.api.exception.NoSuchServiceException;
+import io.krazy.dependency.api.exception.ResolutionException;
 import io.krazy.dependency.api.injector.ConstructorInjector;
 import io.krazy.dependency.api.injector.FieldInjector;
 import io.krazy.dependency.api.injector.MethodInjector;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -53,6 +60,34 @@ public class DefaultServiceProviderTest
         }
     }
 
+    static class ServiceF implements AutoCloseable
+    {
+        final AtomicBoolean closed = new AtomicBoolean(false);
+
+        @Override
+        public void close()
+        {
+            closed.set(true);
+        }
+    }
+
+    static class FailingCloseable implements AutoCloseable
+    {
+        @Override
+        public void close()
+        {
+            throw new IllegalStateException("Close failed");
+        }
+    }
+
+    static class FailingServiceA implements ServiceA
+    {
+        public FailingServiceA()
+        {
+            throw new IllegalStateException("Downstream unavailable");
+        }
+    }
+
     static class ServiceD
     {
         ServiceA a;
@@ -124,6 +159,14 @@ public class DefaultServiceProviderTest
         {
             return ServiceDescriptor.forScoped(impl);
         }
+        if (lifetime == LifetimeType.THREAD)
+        {
+            return ServiceDescriptor.forThread(impl);
+        }
+        if (lifetime == LifetimeType.CACHED)
+        {
+            return ServiceDescriptor.forCached(impl);
+        }
         throw new IllegalArgumentException("Unknown lifetime");
     }
 
@@ -195,6 +238,304 @@ public class DefaultServiceProviderTest
         Assertions.assertNotSame(aRoot, a1);
     }
 
+    @Test
+    void testSingletonSharedAcrossScopes() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.SINGLETON));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+
+        ServiceC fromScope;
+        try (IServiceScope scope = provider.createScope())
+        {
+            fromScope = scope.requestService(ServiceC.class);
+        }
+
+        try (IServiceScope scope = provider.createPooledScope())
+        {
+            Assertions.assertSame(fromScope, scope.requestService(ServiceC.class));
+        }
+
+        Assertions.assertFalse(fromScope.closed.get(), "Closing a scope shouldn't close singletons");
+        Assertions.assertSame(fromScope, provider.requestService(ServiceC.class));
+
+        provider.close();
+        Assertions.assertTrue(fromScope.closed.get(), "Closing the provider should close singletons");
+    }
+
+    @Test
+    void testRequestThread() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(ServiceAImpl.class, LifetimeType.THREAD));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+
+        ServiceA a1 = provider.requestService(ServiceA.class);
+        ServiceA a2 = provider.requestService(ServiceA.class);
+        Assertions.assertSame(a1, a2, "Same thread should return same instance");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            ServiceA other = executor.submit(() -> provider.requestService(ServiceA.class)).get();
+            ServiceA otherAgain = executor.submit(() -> provider.requestService(ServiceA.class)).get();
+
+            Assertions.assertNotSame(a1, other, "Different thread should return different instance");
+            Assertions.assertSame(other, otherAgain);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCloseProviderDisposesThreadServices() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.THREAD));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+        ServiceC local = provider.requestService(ServiceC.class);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ServiceC remote;
+        try
+        {
+            remote = executor.submit(() -> provider.requestService(ServiceC.class)).get();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertFalse(local.closed.get());
+        Assertions.assertFalse(remote.closed.get());
+
+        provider.close();
+
+        Assertions.assertTrue(local.closed.get(), "Thread service should be closed when provider is closed");
+        Assertions.assertTrue(remote.closed.get(), "Every thread's instance should be closed");
+    }
+
+    @Test
+    void testCloseProviderReleasesSlotsOfLiveThreads() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.THREAD));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            ServiceC before = executor.submit(() -> provider.requestService(ServiceC.class)).get();
+            provider.close();
+
+            Assertions.assertTrue(before.closed.get());
+            Assertions.assertTrue(provider.getThreadManager().getThreadMaps().isEmpty());
+
+            ServiceC after = executor.submit(() -> provider.requestService(ServiceC.class)).get();
+            Assertions.assertNotSame(before, after, "A live thread shouldn't keep the disposed instances");
+            Assertions.assertFalse(after.closed.get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLazyMappingLoadsOnce() throws Exception
+    {
+        DependencyRecord record = createRecord(ServiceC.class, LifetimeType.SINGLETON);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        MappingResult result = MappingResult.lazy(Map.of(ServiceC.class, record.descriptor()), (type, published) ->
+        {
+            loads.incrementAndGet();
+            loading.countDown();
+
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException err)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            return Map.of(type, record);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<DependencyRecord>> futures = IntStream.range(0, 4)
+                .mapToObj(i -> executor.submit(() -> result.getRecord(ServiceC.class)))
+                .collect(Collectors.toList());
+
+            loading.await();
+            Thread.sleep(10); // Let the other threads reach the pending load
+            release.countDown();
+
+            for (Future<DependencyRecord> future : futures)
+            {
+                Assertions.assertSame(record, future.get());
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, loads.get(), "Concurrent requests should share one load");
+    }
+
+    @Test
+    void testRequestCached() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(ServiceAImpl.class, LifetimeType.CACHED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+
+        ServiceA a1 = provider.requestService(ServiceA.class);
+        ServiceA a2 = provider.requestService(ServiceA.class);
+        Assertions.assertSame(a1, a2);
+
+        try (IServiceScope scope = provider.createScope())
+        {
+            Assertions.assertSame(a1, scope.requestService(ServiceA.class), "Cache is shared by all scopes");
+        }
+    }
+
+    @Test
+    void testCachedEvictsLeastRecentlyUsed() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.CACHED));
+        map.put(ServiceF.class, createRecord(ServiceF.class, LifetimeType.CACHED));
+
+        CachePolicy policy = CachePolicy.defaults().withMaximumSize(1);
+        DefaultServiceProvider provider = new DefaultServiceProvider(
+            createMappingResult(map),
+            ProviderOptions.defaults(),
+            new DefaultServiceProvider.CacheManager(policy, Runnable::run)
+        );
+
+        ServiceC c1 = provider.requestService(ServiceC.class);
+        ServiceF f = provider.requestService(ServiceF.class);
+
+        Assertions.assertTrue(c1.closed.get(), "Evicted instance should be closed");
+        Assertions.assertFalse(f.closed.get());
+
+        ServiceC c2 = provider.requestService(ServiceC.class);
+        Assertions.assertNotSame(c1, c2, "Evicted instance should be rebuilt");
+        Assertions.assertTrue(f.closed.get());
+    }
+
+    @Test
+    void testCachedExpiresAfterWrite() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.CACHED));
+
+        CachePolicy policy = CachePolicy.defaults().withExpireAfterWrite(Duration.ZERO);
+        DefaultServiceProvider provider = new DefaultServiceProvider(
+            createMappingResult(map),
+            ProviderOptions.defaults(),
+            new DefaultServiceProvider.CacheManager(policy, Runnable::run)
+        );
+
+        ServiceC c1 = provider.requestService(ServiceC.class);
+        ServiceC c2 = provider.requestService(ServiceC.class);
+
+        Assertions.assertNotSame(c1, c2);
+        Assertions.assertTrue(c1.closed.get(), "Expired instance should be closed once replaced");
+
+        provider.close();
+        Assertions.assertTrue(c2.closed.get(), "Cached instance should be closed with the provider");
+    }
+
+    @Test
+    void testCachedSweepsExpiredInstances() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.CACHED));
+        map.put(ServiceF.class, createRecord(ServiceF.class, LifetimeType.CACHED));
+
+        CachePolicy policy = CachePolicy.defaults().withExpireAfterWrite(Duration.ofMillis(20));
+        DefaultServiceProvider provider = new DefaultServiceProvider(
+            createMappingResult(map),
+            ProviderOptions.defaults(),
+            new DefaultServiceProvider.CacheManager(policy, Runnable::run)
+        );
+
+        ServiceC idle = provider.requestService(ServiceC.class);
+        provider.requestService(ServiceF.class);
+        Thread.sleep(50);
+        provider.requestService(ServiceF.class);
+
+        Assertions.assertTrue(idle.closed.get(), "Expired instances should be disposed of without being requested");
+        provider.close();
+    }
+
+    @Test
+    void testCloseDisposesCachedAfterThreadFailure() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(FailingCloseable.class, createRecord(FailingCloseable.class, LifetimeType.THREAD));
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.CACHED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+        provider.requestService(FailingCloseable.class);
+        ServiceC cached = provider.requestService(ServiceC.class);
+
+        Assertions.assertThrows(IllegalStateException.class, provider::close);
+        Assertions.assertTrue(cached.closed.get(), "Cached instances should be disposed of after a failure");
+        Assertions.assertEquals(1, provider.getDisposalFailureCount());
+    }
+
+    @Test
+    void testHandleResolution() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(ServiceAImpl.class, LifetimeType.SCOPED));
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.TRANSIENT));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+        ServiceHandle<ServiceA> handle = provider.handleFor(ServiceA.class);
+        ServiceHandle<ServiceC> transientHandle = provider.handleFor(ServiceC.class);
+
+        Assertions.assertEquals(ServiceA.class, handle.getServiceType());
+        Assertions.assertSame(provider.requestService(ServiceA.class), handle.get(provider));
+        Assertions.assertNotSame(transientHandle.get(provider), transientHandle.get(provider));
+
+        IServiceScope scope = provider.createScope();
+        ServiceA scoped = handle.get(scope);
+
+        Assertions.assertSame(scoped, handle.get(scope));
+        Assertions.assertSame(scoped, scope.requestService(ServiceA.class));
+        Assertions.assertSame(handle, scope.handleFor(ServiceA.class));
+        Assertions.assertNotSame(handle.get(provider), scoped);
+
+        scope.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> handle.get(scope));
+    }
+
+    @Test
+    void testHandleForMissingService()
+    {
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(new HashMap<>()));
+
+        Assertions.assertThrows(NoSuchServiceException.class, () -> provider.handleFor(ServiceA.class));
+    }
+
     @Test
     void testDependencyInjection() throws Exception
     {
@@ -255,6 +596,300 @@ public class DefaultServiceProviderTest
         Assertions.assertTrue(c.closed.get(), "Service should be closed when scope is closed");
     }
 
+    @Test
+    void testPooledScopeIsRecycled() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.SCOPED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+
+        IServiceScope scope = provider.createPooledScope();
+        ServiceC first = scope.requestService(ServiceC.class);
+        scope.close();
+        scope.close();
+
+        Assertions.assertTrue(first.closed.get(), "Service should be closed when pooled scope is closed");
+        Assertions.assertTrue(scope.isClosed());
+        Assertions.assertThrows(IllegalStateException.class, () -> scope.requestService(ServiceC.class));
+
+        IServiceScope recycled = provider.createPooledScope();
+        IServiceScope other = provider.createPooledScope();
+        Assertions.assertFalse(recycled.isClosed());
+
+        ServiceC second = recycled.requestService(ServiceC.class);
+        Assertions.assertNotSame(first, second, "Recycled scope should start empty");
+        Assertions.assertNotSame(second, other.requestService(ServiceC.class), "Scope should be pooled only once");
+        Assertions.assertFalse(second.closed.get());
+
+        Assertions.assertTrue(scope.isClosed(), "Earlier checkout should stay closed");
+        Assertions.assertThrows(IllegalStateException.class, () -> scope.requestService(ServiceC.class));
+        scope.close();
+        Assertions.assertFalse(recycled.isClosed(), "Closing an earlier checkout shouldn't close the scope");
+        Assertions.assertSame(second, recycled.requestService(ServiceC.class));
+    }
+
+    @Test
+    void testScopePoolDisabled() throws Exception
+    {
+        DefaultServiceProvider provider = new DefaultServiceProvider(
+            createMappingResult(new HashMap<>()),
+            ProviderOptions.defaults().withScopePoolCapacity(0)
+        );
+
+        IServiceScope scope = provider.createPooledScope();
+        scope.close();
+
+        Assertions.assertNotSame(scope, provider.createPooledScope());
+        Assertions.assertFalse(provider.getScopeManager().getScopeMap().containsKey(scope));
+    }
+
+    @Test
+    void testScopeStatistics() throws Exception
+    {
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(new HashMap<>()));
+
+        IServiceScope scope = provider.createScope();
+        IServiceScope pooled = provider.createPooledScope();
+
+        ScopeStatistics open = provider.getScopeStatistics();
+        Assertions.assertEquals(2, open.getLiveCount());
+        Assertions.assertEquals(2, open.createdCount());
+
+        scope.close();
+        pooled.close();
+
+        ScopeStatistics closed = provider.getScopeStatistics();
+        Assertions.assertEquals(0, closed.getLiveCount());
+        Assertions.assertEquals(2, closed.closedCount());
+        Assertions.assertEquals(0, closed.leakedCount());
+        Assertions.assertEquals(Duration.ZERO, closed.getOldestAge());
+    }
+
+    @Test
+    void testLeakedScopeIsDisposed() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.SCOPED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+        ServiceC leaked = requestFromLeakedScope(provider);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (provider.getScopeStatistics().leakedCount() == 0 && System.nanoTime() < deadline)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        Assertions.assertEquals(1, provider.getScopeStatistics().leakedCount());
+        Assertions.assertEquals(0, provider.getScopeStatistics().getLiveCount());
+        Assertions.assertTrue(leaked.closed.get(), "Services of a leaked scope should be disposed");
+    }
+
+    // Keeps the scope out of the caller's frame so it can be collected.
+    private static ServiceC requestFromLeakedScope(DefaultServiceProvider provider)
+    {
+        return provider.createScope().requestService(ServiceC.class);
+    }
+
+    @Test
+    void testConfinedScope() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(ServiceAImpl.class, LifetimeType.SCOPED));
+        map.put(ServiceB.class, createRecord(ServiceBImpl.class, LifetimeType.SCOPED, ServiceA.class));
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.SCOPED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+        IServiceScope scope = provider.createScope(ScopeMode.CONFINED);
+        IServiceScope other = provider.createScope(ScopeMode.CONFINED);
+
+        ServiceA a = scope.requestService(ServiceA.class);
+        ServiceBImpl b = (ServiceBImpl) scope.requestService(ServiceB.class);
+        ServiceC c = provider.handleFor(ServiceC.class).get(scope);
+
+        Assertions.assertSame(a, scope.requestService(ServiceA.class));
+        Assertions.assertSame(a, b.a);
+        Assertions.assertSame(c, scope.requestService(ServiceC.class));
+        Assertions.assertNotSame(a, other.requestService(ServiceA.class));
+        Assertions.assertEquals(0, provider.getScopeStatistics().createdCount());
+
+        provider.closeScope(scope);
+
+        Assertions.assertTrue(scope.isClosed());
+        Assertions.assertTrue(c.closed.get(), "Services of a confined scope should be disposed on close");
+        Assertions.assertThrows(IllegalStateException.class, () -> scope.requestService(ServiceA.class));
+    }
+
+    @Test
+    void testConfinedScopeRejectsOtherThreads() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(ServiceAImpl.class, LifetimeType.SCOPED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+        IServiceScope scope = provider.createScope(ScopeMode.CONFINED);
+        ServiceHandle<ServiceA> handle = provider.handleFor(ServiceA.class);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor())
+        {
+            Future<?> request = executor.submit(() -> scope.requestService(ServiceA.class));
+            Future<?> bound = executor.submit(() -> handle.get(scope));
+            Future<?> close = executor.submit(() ->
+            {
+                scope.close();
+                return null;
+            });
+
+            for (Future<?> future : List.of(request, bound, close))
+            {
+                ExecutionException err = Assertions.assertThrows(ExecutionException.class, future::get);
+                Assertions.assertInstanceOf(IllegalStateException.class, err.getCause());
+            }
+        }
+
+        Assertions.assertFalse(scope.isClosed());
+        Assertions.assertNotNull(scope.requestService(ServiceA.class));
+        scope.close();
+    }
+
+    @Test
+    void testCustomScopeStorage() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(ServiceAImpl.class, LifetimeType.SCOPED));
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.SCOPED));
+
+        List<ScopeMode> modes = new CopyOnWriteArrayList<>();
+        DefaultServiceProvider provider = new DefaultServiceProvider(
+            createMappingResult(map),
+            ProviderOptions.defaults().withScopeStorageFactory((slotCount, mode) ->
+            {
+                modes.add(mode);
+                return new ConcurrentScopeStorage(slotCount);
+            })
+        );
+
+        // The provider's own storage of scoped services.
+        Assertions.assertEquals(List.of(ScopeMode.SHARED), modes);
+
+        IServiceScope shared = provider.createScope();
+        IServiceScope confined = provider.createScope(ScopeMode.CONFINED);
+        Assertions.assertEquals(List.of(ScopeMode.SHARED, ScopeMode.SHARED, ScopeMode.CONFINED), modes);
+
+        ServiceC sharedC = shared.requestService(ServiceC.class);
+        ServiceC confinedC = confined.requestService(ServiceC.class);
+        Assertions.assertSame(confinedC, confined.requestService(ServiceC.class));
+        Assertions.assertNotSame(sharedC, confinedC);
+
+        shared.close();
+        confined.close();
+        Assertions.assertTrue(sharedC.closed.get());
+        Assertions.assertTrue(confinedC.closed.get());
+    }
+
+    @Test
+    void testCloseDisposesSingletonsAfterFailure() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.SINGLETON));
+        map.put(FailingCloseable.class, createRecord(FailingCloseable.class, LifetimeType.SCOPED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+        ServiceC singleton = provider.requestService(ServiceC.class);
+        provider.requestService(FailingCloseable.class);
+
+        Assertions.assertThrows(IllegalStateException.class, provider::close);
+        Assertions.assertTrue(singleton.closed.get(), "Singletons should be disposed of after a failure");
+    }
+
+    @Test
+    void testCloseStaleScopesClosesPooledLeases() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(FailingCloseable.class, createRecord(FailingCloseable.class, LifetimeType.SCOPED));
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.SCOPED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+        IServiceScope scope = provider.createScope();
+        IServiceScope leaked = provider.createPooledScope();
+        scope.requestService(FailingCloseable.class);
+        ServiceC leakedService = leaked.requestService(ServiceC.class);
+
+        Assertions.assertEquals(1, provider.getScopeManager().closeStale(0));
+        Assertions.assertTrue(scope.isClosed());
+        Assertions.assertTrue(leaked.isClosed());
+        Assertions.assertTrue(leakedService.closed.get());
+        Assertions.assertEquals(1, provider.getDisposalFailureCount());
+        Assertions.assertThrows(IllegalStateException.class, () -> leaked.requestService(ServiceC.class));
+
+        try (IServiceScope next = provider.createPooledScope())
+        {
+            Assertions.assertNotSame(leakedService, next.requestService(ServiceC.class));
+            Assertions.assertEquals(List.of(1), provider.getScopeManager().getInstanceCounts());
+        }
+    }
+
+    @Test
+    void testResolutionRateDecays()
+    {
+        ProviderStatistics statistics = new ProviderStatistics();
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 1000; i++)
+        {
+            statistics.recordResolution(LifetimeType.SINGLETON);
+        }
+
+        double busy = statistics.getResolutionRate(LifetimeType.SINGLETON, now + TimeUnit.SECONDS.toNanos(1));
+        double idle = statistics.getResolutionRate(LifetimeType.SINGLETON, now + TimeUnit.MINUTES.toNanos(5));
+
+        Assertions.assertTrue(busy > 900, "The first read should reflect the load so far");
+        Assertions.assertTrue(idle < busy / 100, "Past resolutions should fade out while idle");
+    }
+
+    @Test
+    void testMonitorMBean() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(ServiceAImpl.class, LifetimeType.SINGLETON));
+        map.put(ServiceC.class, createRecord(ServiceC.class, LifetimeType.SCOPED));
+
+        ProviderTemplate template = new ProviderTemplate(
+            createMappingResult(map),
+            ProviderOptions.defaults().withMonitoring(true)
+        );
+        DefaultServiceProvider provider = template.createProvider();
+        ObjectName name = provider.getMonitorName();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Assertions.assertNotNull(name);
+
+        provider.requestService(ServiceA.class);
+        provider.requestService(ServiceA.class);
+        IServiceScope scope = provider.createScope();
+        ServiceC scoped = scope.requestService(ServiceC.class);
+
+        Assertions.assertEquals(1L, server.getAttribute(name, "SingletonsCreated"));
+        Assertions.assertEquals(1, server.getAttribute(name, "LiveScopeCount"));
+        Assertions.assertTrue(
+            ((String) server.invoke(name, "dumpDependencyGraph", null, null)).contains(ServiceC.class.getName())
+        );
+
+        ProviderMonitorMXBean monitor = JMX.newMXBeanProxy(server, name, ProviderMonitorMXBean.class);
+        Assertions.assertEquals(2L, monitor.getResolutionCounts().get("SINGLETON"));
+        Assertions.assertEquals(1L, monitor.getScopedInstancesPerScope().get("1"));
+        Assertions.assertTrue(monitor.getP99ConstructionMillis().containsKey(ServiceC.class.getName()));
+
+        Assertions.assertEquals(1, monitor.closeStaleScopes(0));
+        Assertions.assertTrue(scope.isClosed());
+        Assertions.assertTrue(scoped.closed.get());
+        Assertions.assertEquals(0, monitor.getLiveScopeCount());
+
+        provider.close();
+        Assertions.assertFalse(server.isRegistered(name));
+    }
+
     @Test
     void testNoSuchServiceException()
     {
@@ -264,6 +899,66 @@ public class DefaultServiceProviderTest
         Assertions.assertThrows(NoSuchServiceException.class, () -> provider.requestService(ServiceA.class));
     }
 
+    @Test
+    void testResolutionExceptionCarriesPath() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(FailingServiceA.class, LifetimeType.SINGLETON));
+        map.put(ServiceB.class, createRecord(ServiceBImpl.class, LifetimeType.TRANSIENT, ServiceA.class));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+
+        ResolutionException err = Assertions.assertThrows(
+            ResolutionException.class,
+            () -> provider.requestService(ServiceB.class)
+        );
+
+        Assertions.assertEquals(ServiceA.class, err.getFailedType());
+        Assertions.assertEquals(List.of(ServiceB.class, ServiceA.class), err.getResolutionPath());
+        Assertions.assertInstanceOf(IllegalStateException.class, err.getCause());
+        Assertions.assertTrue(err.getMessage().contains(ServiceB.class.getTypeName() + " -> " + ServiceA.class.getTypeName()));
+        Assertions.assertTrue(err.getStackTrace().length > 0);
+    }
+
+    @Test
+    void testResolutionExceptionWithoutStackTrace() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(FailingServiceA.class, LifetimeType.TRANSIENT));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(
+            createMappingResult(map),
+            ProviderOptions.defaults().withCaptureStackTraces(false)
+        );
+
+        ResolutionException err = Assertions.assertThrows(
+            ResolutionException.class,
+            () -> provider.requestService(ServiceA.class)
+        );
+
+        Assertions.assertEquals(0, err.getStackTrace().length);
+        Assertions.assertTrue(err.getCause().getStackTrace().length > 0);
+    }
+
+    @Test
+    void testTryRequestService() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> map = new HashMap<>();
+        map.put(ServiceA.class, createRecord(ServiceAImpl.class, LifetimeType.SCOPED));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(createMappingResult(map));
+
+        Assertions.assertTrue(provider.tryRequestService(ServiceA.class).isPresent());
+        Assertions.assertTrue(provider.tryRequestService(ServiceB.class).isEmpty());
+        Assertions.assertNull(provider.requestServiceOrNull(ServiceB.class));
+
+        try (IServiceScope scope = provider.createScope())
+        {
+            Assertions.assertSame(scope.requestService(ServiceA.class), scope.requestServiceOrNull(ServiceA.class));
+            Assertions.assertTrue(scope.tryRequestService(ServiceB.class).isEmpty());
+        }
+    }
+
     @Test
     void testScopeClosedException() throws Exception
     {
@@ -0,0 +1,106 @@
+package io.krazy.dependency.impl;
+
+import io.krazy.dependency.api.*;
+import io.krazy.dependency.api.injector.ConstructorInjector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the per-request cost of shared and confined scopes: open a scope,
+ * resolve a small graph of scoped services twice and close it. Run with
+ * {@code gradle benchmark}; it is excluded from the regular test run.
+ */
+@Tag("benchmark")
+public class ScopeModeBenchmark
+{
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int ITERATIONS = 200_000;
+
+    public static class Repository
+    {
+    }
+
+    public static class Session
+    {
+    }
+
+    public static class Handler
+    {
+        public Handler(Repository repository, Session session)
+        {
+        }
+    }
+
+    // Prevents the JIT from eliminating the measured work.
+    private static volatile Object sink;
+
+    @Test
+    void compareScopeModes() throws Exception
+    {
+        Map<Class<?>, DependencyRecord> records = new HashMap<>();
+        records.put(Repository.class, createRecord(Repository.class));
+        records.put(Session.class, createRecord(Session.class));
+        records.put(Handler.class, createRecord(Handler.class, Repository.class, Session.class));
+
+        DefaultServiceProvider provider = new DefaultServiceProvider(
+            new MappingResult(records),
+            ProviderOptions.defaults().withScopePoolCapacity(0)
+        );
+        ServiceHandle<Handler> handle = provider.handleFor(Handler.class);
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++)
+        {
+            run(provider, handle, ScopeMode.SHARED);
+            run(provider, handle, ScopeMode.CONFINED);
+        }
+
+        long shared = Long.MAX_VALUE;
+        long confined = Long.MAX_VALUE;
+
+        for (int i = 0; i < MEASURED_ROUNDS; i++)
+        {
+            shared = Math.min(shared, run(provider, handle, ScopeMode.SHARED));
+            confined = Math.min(confined, run(provider, handle, ScopeMode.CONFINED));
+        }
+
+        System.out.printf(
+            "Scoped request: shared %.1f ns/op, confined %.1f ns/op (%.2fx)%n",
+            (double) shared / ITERATIONS,
+            (double) confined / ITERATIONS,
+            (double) shared / confined
+        );
+
+        Assertions.assertNotNull(sink);
+        provider.close();
+    }
+
+    private static long run(DefaultServiceProvider provider, ServiceHandle<Handler> handle, ScopeMode mode)
+        throws Exception
+    {
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            try (IServiceScope scope = provider.createScope(mode))
+            {
+                sink = handle.get(scope);
+                sink = handle.get(scope);
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private static DependencyRecord createRecord(Class<?> type, Class<?>... ctorParams) throws Exception
+    {
+        ServiceDescriptor descriptor = ServiceDescriptor.forScoped(type);
+        ConstructorInjector ctorInjector = ConstructorInjector.from(type.getDeclaredConstructor(ctorParams));
+        return new DependencyRecord(descriptor, ctorInjector, List.of(), List.of());
+    }
+}
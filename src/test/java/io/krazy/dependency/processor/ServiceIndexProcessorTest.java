@@ -0,0 +1,111 @@
+package io.krazy.dependency.processor;
+
+import io.krazy.dependency.api.ServiceIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceIndexProcessorTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWriteIndexEntries() throws IOException
+    {
+        Path source = writeSource("""
+            package sample;
+
+            import io.krazy.dependency.api.LifetimeType;
+            import io.krazy.dependency.api.annotation.Service;
+
+            interface IReader {}
+
+            @Service(lifetime = LifetimeType.SINGLETON, as = IReader.class)
+            class Store implements IReader {}
+
+            class Outer
+            {
+                @Service(lifetime = LifetimeType.TRANSIENT)
+                static class Inner {}
+            }
+            """);
+
+        assertEquals(0, compile(source));
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("out").resolve(ServiceIndex.RESOURCE_PATH));
+        assertEquals(List.of("SINGLETON sample.IReader sample.Store", "TRANSIENT sample.Outer$Inner sample.Outer$Inner"), lines);
+    }
+
+    @Test
+    void shouldWriteRecordEntries() throws IOException
+    {
+        Path source = writeSource("""
+            package sample;
+
+            import io.krazy.dependency.api.LifetimeType;
+            import io.krazy.dependency.api.annotation.Service;
+
+            interface IReader {}
+
+            @Service(lifetime = LifetimeType.SCOPED, as = IReader.class)
+            record Settings(String name) implements IReader {}
+            """);
+
+        assertEquals(0, compile(source));
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("out").resolve(ServiceIndex.RESOURCE_PATH));
+        assertEquals(List.of("SCOPED sample.IReader sample.Settings"), lines);
+    }
+
+    @Test
+    void shouldRejectUnassignableMapping() throws IOException
+    {
+        Path source = writeSource("""
+            package sample;
+
+            import io.krazy.dependency.api.LifetimeType;
+            import io.krazy.dependency.api.annotation.Service;
+
+            interface IReader {}
+
+            @Service(lifetime = LifetimeType.SINGLETON, as = IReader.class)
+            class Store {}
+            """);
+
+        assertNotEquals(0, compile(source));
+    }
+
+    private Path writeSource(String content) throws IOException
+    {
+        Path source = tempDir.resolve("Sample.java");
+        Files.writeString(source, content);
+        return source;
+    }
+
+    private int compile(Path source) throws IOException
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Path out = Files.createDirectories(tempDir.resolve("out"));
+
+        return compiler.run(
+            null,
+            new ByteArrayOutputStream(),
+            new ByteArrayOutputStream(),
+            "-proc:only",
+            "-processor", ServiceIndexProcessor.class.getName(),
+            "-classpath", System.getProperty("java.class.path"),
+            "-d", out.toString(),
+            source.toString()
+        );
+    }
+}